@@ -8,12 +8,26 @@ public class AlgoConfig {
     private IExceptionHandler customExceptionHandler;
     private String externalPropertiesPath;
     private MonitorStepConfig monitorStepConfig;
+    private int asyncShoutMaxInFlight;
+    private ExecutionMode executionMode;
+    private int dispatcherParallelism;
+    private int dispatcherThroughput;
+    private long tickTimerResolution;
+    private int startupParallelism;
+    private long shutdownDrainTimeout;
 
     public AlgoConfig() {
         SteppingProperties stepProp = SteppingProperties.getInstance();
         runningInitialDelay = new Long(stepProp.getProperty("stepping.default.algo.initialdelay"));
         runningPeriodicDelay = new Long(stepProp.getProperty("stepping.default.algo.delay"));
         enableTickCallback = new Boolean(stepProp.getProperty("stepping.default.algo.enable.tickcallback"));
+        asyncShoutMaxInFlight = new Integer(stepProp.getProperty("stepping.default.algo.async.shout.max.inflight"));
+        executionMode = ExecutionMode.valueOf(stepProp.getProperty("stepping.default.algo.execution.mode").toUpperCase());
+        dispatcherParallelism = new Integer(stepProp.getProperty("stepping.default.algo.dispatcher.parallelism"));
+        dispatcherThroughput = new Integer(stepProp.getProperty("stepping.default.algo.dispatcher.throughput"));
+        tickTimerResolution = new Long(stepProp.getProperty("stepping.default.algo.tick.timer.resolution"));
+        startupParallelism = new Integer(stepProp.getProperty("stepping.default.algo.startup.parallelism"));
+        shutdownDrainTimeout = new Long(stepProp.getProperty("stepping.default.algo.shutdown.drain.timeout"));
         perfSamplerStepConfig = new PerfSamplerStepConfig();
         monitorStepConfig = new MonitorStepConfig();
     }
@@ -78,4 +92,67 @@ public class AlgoConfig {
     public void setMonitorReportReleaseTimeout(int timeout) {
         monitorStepConfig.setReportReleaseTimeout(timeout);
     }
+
+    public int getAsyncShoutMaxInFlight() {
+        return asyncShoutMaxInFlight;
+    }
+
+    //* Max number of Shouter.shoutAsync() calls of a Step not yet distributed, its further calls block till one completes
+    public void setAsyncShoutMaxInFlight(int asyncShoutMaxInFlight) {
+        this.asyncShoutMaxInFlight = asyncShoutMaxInFlight;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    //* The threads running the Steps' DataSinks and tick callbacks, see ExecutionMode
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getDispatcherParallelism() {
+        return dispatcherParallelism;
+    }
+
+    //* ExecutionMode.DISPATCHER number of workers, 0 for the number of available processors
+    public void setDispatcherParallelism(int dispatcherParallelism) {
+        this.dispatcherParallelism = dispatcherParallelism;
+    }
+
+    public int getDispatcherThroughput() {
+        return dispatcherThroughput;
+    }
+
+    //* ExecutionMode.DISPATCHER max number of messages a Step processes before yielding its worker
+    public void setDispatcherThroughput(int dispatcherThroughput) {
+        this.dispatcherThroughput = dispatcherThroughput;
+    }
+
+    public long getTickTimerResolution() {
+        return tickTimerResolution;
+    }
+
+    //* Milliseconds, the granularity of the timer driving all the tick callbacks of the Algo
+    public void setTickTimerResolution(long tickTimerResolution) {
+        this.tickTimerResolution = tickTimerResolution;
+    }
+
+    public int getStartupParallelism() {
+        return startupParallelism;
+    }
+
+    //* Number of Steps initialized and restated at the same time, 0 for the number of available processors
+    public void setStartupParallelism(int startupParallelism) {
+        this.startupParallelism = startupParallelism;
+    }
+
+    public long getShutdownDrainTimeout() {
+        return shutdownDrainTimeout;
+    }
+
+    //* Milliseconds, the deadline of the graceful drain on close(). 0 disables the drain, queued messages are dropped
+    public void setShutdownDrainTimeout(long shutdownDrainTimeout) {
+        this.shutdownDrainTimeout = shutdownDrainTimeout;
+    }
 }
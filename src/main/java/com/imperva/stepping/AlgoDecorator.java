@@ -6,21 +6,30 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CyclicBarrier;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
     private final Logger logger = LoggerFactory.getLogger(AlgoDecorator.class);
     private Container cntr = new ContainerDefaultImpl();
     private Container cntrPublic = new ContainerService();
     private Algo algo;
-    private RunnersController runnersController = new RunnersController();//* todo Use CompletionService
+    private RunnersController runnersController;//* todo Use CompletionService
     private volatile boolean isClosed = false;
+    private final AtomicBoolean closing = new AtomicBoolean();//* Set once close starts, isClosed is set only once drained
     private final ReentrantLock closingLock = new ReentrantLock();
     private final int closingLockWaitDuration = 1;//* in seconds
     private final int poisonPillWaitDuration = 3000;
+    private static final long DRAIN_POLL_INTERVAL = 1;//* Milliseconds
+    private final List<AutoScaler> autoScalers = new ArrayList<>();
+    private final Object scalingLock = new Object();
+    private boolean scalingStopped;//* Guarded by scalingLock
 
     AlgoDecorator(Algo algo) {
         this.algo = algo;
@@ -28,44 +37,61 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
 
     @Override
     public void init() {
-        try {
+        try (AlgoStartup startup = new AlgoStartup(getConfig().getStartupParallelism())) {
             logger.info("Initializing Algo...");
+            runnersController = new RunnersController(getConfig().getExecutionMode());
+            if (getConfig().getExecutionMode() == ExecutionMode.DISPATCHER)
+                runnersController.setDispatcher(new Dispatcher(getConfig().getDispatcherParallelism(), getConfig().getDispatcherThroughput(), this));
+            runnersController.setTickTimer(new TickTimer(getConfig().getTickTimerResolution(), TimeUnit.MILLISECONDS, runnersController.getExecutorService(), runnersController.newThreadFactory("stepping.tick.timer")));
 
             logger.info("Populating container...");
-            fillContainer();
+            startup.phase("fillContainer", this::fillContainer);
 
             logger.info("Decorating Steps...");
-            decorateSteps();
+            startup.phase("decorateSteps", this::decorateSteps);
 
             logger.info("Fill Auto Created Subjects in Container...");
-            fillAutoCreatedSubjectsInContainer();
+            startup.phase("fillAutoCreatedSubjects", this::fillAutoCreatedSubjectsInContainer);
 
             logger.info("Duplicating Parallel Nodes Steps...");
-            duplicateNodes();
+            startup.phase("duplicateNodes", this::duplicateNodes);
 
             logger.info("Populating public container...");
-            fillPublicContainer();
+            startup.phase("fillPublicContainer", this::fillPublicContainer);
+
+            logger.info("Wiring Consumer Groups...");
+            startup.phase("wireConsumerGroups", this::wireConsumerGroups);
 
             logger.info("Initializing Steps");
-            initSteps();
+            initSteps(startup);
+
+            logger.info("Wiring Work Stealing Parallel Nodes...");
+            startup.phase("wireWorkStealing", this::wireWorkStealing);
+
+            logger.info("Fusing Steps...");
+            startup.phase("wireFusion", this::wireFusion);
 
             logger.info("Initializing Runners...");
-            initRunners();
+            startup.phase("initRunners", this::initRunners);
 
             logger.info("Register ShutdownHook...");
             registerShutdownHook();
 
             logger.info("Attach Subjects to Followers...");
-            attachSubjects();
+            startup.phase("attachSubjects", this::attachSubjects);
 
             logger.info("Starting Restate stage...");
-            restate();
+            restate(startup);
 
             logger.debug("Run Steps...");
-            wakenRunners();
+            startup.phase("wakenRunners", this::wakenRunners);
 
             logger.debug("Init Algo...");
-            algo.init();
+            startup.phase("algoInit", algo::init);
+
+            logger.info(startup.report());
+            if (logger.isDebugEnabled())
+                logger.debug("Steps startup timings: " + startup.stepReport());
         } catch (Exception e) {
             logger.error("Algo initialization FAILED", e);
             handle(e);
@@ -134,37 +160,76 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
 
     private void duplicateNodes() throws ClassNotFoundException, IllegalAccessException, InstantiationException {
         for (IStepDecorator iStepDecoratorToDuplicate : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
+            AutoScaler autoScaler = createAutoScaler(iStepDecoratorToDuplicate);
             int numOfNodes = iStepDecoratorToDuplicate.getConfig().getNumOfNodes();
+            if (autoScaler != null) {
+                numOfNodes = Math.max(numOfNodes, autoScaler.getConfig().getMinNodes());
+                //* Nodes may be added later on, the distribution node ID is needed even for a single node
+                iStepDecoratorToDuplicate.setDistributionNodeID(iStepDecoratorToDuplicate.getStep().getClass().getName());
+                autoScaler.add(iStepDecoratorToDuplicate);
+                autoScaler.setNextIndex(Math.max(numOfNodes, 1));
+            }
             if (numOfNodes > 0) {
                 for (int i = 1; i <= numOfNodes - 1; i++) {
-                    Step currentStep = iStepDecoratorToDuplicate.getStep();
-                    String currentStepId = currentStep.getId();
-                    Step duplicatedStp = (Step) Class.forName(currentStep.getClass().getName(), true, currentStep.getClass().getClassLoader()).newInstance();
-                    String stepID = currentStepId + "." + i;
-                    try {
-                        duplicatedStp.setId(stepID);
-                        if (!duplicatedStp.getId().equals(stepID)) {
-                            throw new SteppingException("Can't set Step id. Tried to set id: " + stepID + " but found: " + duplicatedStp.getId());
-                        }
-                    } catch (SteppingException ex) {
-                        logger.error(ex.getMessage());
-                        logger.error("Make sure setId() and getId() are implemented in Step: " + currentStep.getClass());
-                        throw ex;
-                    }
+                    StepDecorator stepDecorator = duplicateNode(iStepDecoratorToDuplicate, i);
+                    iStepDecoratorToDuplicate.setDistributionNodeID(stepDecorator.getDistributionNodeID());
+                    if (autoScaler != null)
+                        autoScaler.add(stepDecorator);
+                }
+            }
+        }
+    }
 
-                    StepDecorator stepDecorator = new StepDecorator(duplicatedStp);
-                    String stepDecoratorId = iStepDecoratorToDuplicate.getStep().getId() + "." + i + ".decorator";
-                    stepDecorator.setId(stepDecoratorId);
+    private StepDecorator duplicateNode(IStepDecorator iStepDecoratorToDuplicate, int i) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+        Step currentStep = iStepDecoratorToDuplicate.getStep();
+        String currentStepId = currentStep.getId();
+        Step duplicatedStp = (Step) Class.forName(currentStep.getClass().getName(), true, currentStep.getClass().getClassLoader()).newInstance();
+        String stepID = currentStepId + "." + i;
+        try {
+            duplicatedStp.setId(stepID);
+            if (!duplicatedStp.getId().equals(stepID)) {
+                throw new SteppingException("Can't set Step id. Tried to set id: " + stepID + " but found: " + duplicatedStp.getId());
+            }
+        } catch (SteppingException ex) {
+            logger.error(ex.getMessage());
+            logger.error("Make sure setId() and getId() are implemented in Step: " + currentStep.getClass());
+            throw ex;
+        }
 
-                    String distId = stepDecorator.getStep().getClass().getName();
-                    stepDecorator.setDistributionNodeID(distId);
-                    iStepDecoratorToDuplicate.setDistributionNodeID(distId);
+        StepDecorator stepDecorator = new StepDecorator(duplicatedStp);
+        String stepDecoratorId = iStepDecoratorToDuplicate.getStep().getId() + "." + i + ".decorator";
+        stepDecorator.setId(stepDecoratorId);
 
-                    cntr.add(stepDecorator, stepDecoratorId);
-                    cntr.add(duplicatedStp, duplicatedStp.getId());
-                }
-            }
+        String distId = stepDecorator.getStep().getClass().getName();
+        stepDecorator.setDistributionNodeID(distId);
+
+        cntr.add(stepDecorator, stepDecoratorId);
+        cntr.add(duplicatedStp, duplicatedStp.getId());
+        return stepDecorator;
+    }
+
+    private AutoScaler createAutoScaler(IStepDecorator iStepDecorator) {
+        AutoScaleConfig autoScaleConfig = iStepDecorator.getConfig().getAutoScaleConfig();
+        if (autoScaleConfig == null || !autoScaleConfig.isEnable())
+            return null;
+        if (iStepDecorator.getConfig().getJournalCodec() != null)
+            throw new IdentifiableSteppingException(iStepDecorator.getStep().getId(), "Autoscaling can't be combined with journal");
+        //* Adding or removing a node remaps keys while their previous owner may still have a backlog, breaking the ordering
+        for (FollowRequest followRequest : iStepDecorator.listSubjectsToFollow().get()) {
+            if (iStepDecorator.getDistributionStrategy(followRequest.getSubjectType()) instanceof KeyPartitionedDistributionStrategy)
+                throw new IdentifiableSteppingException(iStepDecorator.getStep().getId(), "Autoscaling can't be combined with KeyPartitionedDistributionStrategy");
         }
+        if (iStepDecorator.getConfig().getNumOfNodes() > autoScaleConfig.getMaxNodes())
+            throw new IdentifiableSteppingException(iStepDecorator.getStep().getId(), "NumOfNodes can't exceed the autoscaling MaxNodes");
+        AutoScaler autoScaler = new AutoScaler(iStepDecorator, autoScaleConfig, System.currentTimeMillis());
+        autoScalers.add(autoScaler);
+        return autoScaler;
+    }
+
+    //* Duplicated at init or possibly at runtime by the autoscaler
+    private boolean isParallel(IStepDecorator step) {
+        AutoScaleConfig autoScaleConfig = step.getConfig().getAutoScaleConfig();
+        return step.getConfig().getNumOfNodes() > 1 || (autoScaleConfig != null && autoScaleConfig.isEnable());
     }
 
     private void registerShutdownHook() {
@@ -182,6 +247,7 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
     private ContainerRegistrar builtinContainerRegistration() {
         ContainerRegistrar containerRegistrar = new ContainerRegistrar();
         containerRegistrar.add(BuiltinTypes.STEPPING_SHOUTER.name(), new Shouter("DEFAULT_EXTERNAL_SHOUTER",cntr, this));
+        containerRegistrar.add(BuiltinTypes.STEPPING_SHOUT_PUBLISHER.name(), new ShoutPublisher(algo.getClass().getSimpleName() + ".shout", getConfig().getAsyncShoutMaxInFlight()));
 
         containerRegistrar.add(BuiltinSubjectType.STEPPING_DATA_ARRIVED.name(), new Subject(BuiltinSubjectType.STEPPING_DATA_ARRIVED.name()));
         containerRegistrar.add(BuiltinSubjectType.STEPPING_PUBLISH_DATA.name(), new Subject(BuiltinSubjectType.STEPPING_PUBLISH_DATA.name()));
@@ -227,77 +293,33 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
         return algo.containerRegistration();
     }
 
-    private void restate() {
-        List<Thread> threads = new ArrayList<>();
-        for (IStepDecorator step : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
-            Thread thread = new Thread(() -> {
-                step.onRestate();
-            });
-            thread.setName("onRestate: " + step.getClass().getName());
-            thread.setUncaughtExceptionHandler((t, e) -> {
-                if (e instanceof Exception) {
-                    Exception ex = (Exception) e;
-                    logger.error("OnRestate phase FAILED", ex);
-                    handle(ex);
-                }
-            });
-            thread.start();
-            threads.add(thread);
-        }
-
-        threads.forEach((t) -> {
+    //* onRestate of all the nodes runs in parallel, including the nodes of a parallel Step, a failing Step is handled and
+    //* the others carry on
+    private void restate(AlgoStartup startup) throws Exception {
+        startup.forEachStep("onRestate", cntr.<IStepDecorator>getSonOf(IStepDecorator.class), IStepDecorator::getId, (step) -> {
             try {
-                t.join();
-            } catch (InterruptedException e) {
-                logger.error("Exception while waiting for restate phase to complete");
+                step.onRestate();
+            } catch (Exception e) {
+                logger.error("OnRestate phase FAILED", e);
+                handle(e);
+            } catch (Error err) {
+                logger.error("OnRestate phase FAILED - ERROR", err);
+                handle(err);
             }
-        });
+        }, false);
     }
 
     private void initRunners() {
         AlgoConfig globConf = getConfig();
         for (IStepDecorator iStepDecorator : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
-            if (iStepDecorator.getConfig().isEnableTickCallback()) {
-                CyclicBarrier cb = new CyclicBarrier(2);
-                String runnerScheduledID = iStepDecorator.getStep().getId() + ".runningScheduled";
-                RunningScheduled runningScheduled = new RunningScheduled(runnerScheduledID,
-                        () -> {
-                            try {
-                                iStepDecorator.queueSubjectUpdate(new Data(cb), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name());
-                                cb.await();
-                            } catch (Exception e) {
-                                handle(e);
-                            } catch (Error err) {
-                                handle(err);
-                            }
-
-                        });
-                setRunningScheduledDelay(runningScheduled, iStepDecorator.getStep().getConfig());
-                cntr.add(runningScheduled, runnerScheduledID);
-                runnersController.addScheduledRunner(runningScheduled.getScheduledExecutorService());
-            }
-            cntr.add(new Running(() -> {
-                while (true) {
-                    try {
-                        iStepDecorator.openDataSink();
-                    } catch (Exception e) {
-                        if (!handle(e)) {
-                            logger.debug("Exception was NOT handled successfully, Step is stopped");
-                            break;
-                        } else {
-                            logger.debug("Exception was handled, re-opening DataSink ");
-                        }
+            initRunners(iStepDecorator);
+        }
 
-                    } catch (Error err) {
-                        if (!handle(err)) {
-                            logger.debug("Error was NOT handled successfully, re-opening DataSink");
-                            break;
-                        } else {
-                            logger.debug("Error was handled, re-opening DataSink ");
-                        }
-                    }
-                }
-            }, runnersController.getExecutorService()));
+        for (AutoScaler autoScaler : autoScalers) {
+            long interval = autoScaler.getConfig().getEvaluationInterval();
+            String autoScalerID = autoScaler.getTemplate().getStep().getId() + ".autoScaler";
+            RunningScheduled runningAutoScaler = new RunningScheduled(autoScalerID, interval, interval, TimeUnit.MILLISECONDS, () -> autoScale(autoScaler), runnersController.getTickTimer());
+            cntr.add(runningAutoScaler, autoScalerID);
         }
 
         if (this.getConfig().isEnableTickCallback()) {
@@ -313,13 +335,69 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
                         } catch (Error err) {
                             handle(err);
                         }
-                    });
+                    }, runnersController.getTickTimer());
             cntr.add(runningScheduledAlgo, this.getClass().getName());
-            runnersController.addScheduledRunner(runningScheduledAlgo.getScheduledExecutorService());
         }
     }
 
 
+    private List<IRunning> initRunners(IStepDecorator iStepDecorator) {
+        List<IRunning> runners = new ArrayList<>();
+        if (iStepDecorator.getConfig().isEnableTickCallback()) {
+            String runnerScheduledID = iStepDecorator.getStep().getId() + ".runningScheduled";
+            RunningScheduled runningScheduled = new RunningScheduled(runnerScheduledID,
+                    () -> {
+                        try {
+                            iStepDecorator.tick();
+                        } catch (Exception e) {
+                            //* A Step removed by the autoscaler may still be ticked once after its queue is closed
+                            if (!iStepDecorator.isRetired())
+                                handle(e);
+                        } catch (Error err) {
+                            handle(err);
+                        }
+                    }, runnersController.getTickTimer(), true);
+            setRunningScheduledDelay(runningScheduled, iStepDecorator.getStep().getConfig());
+            cntr.add(runningScheduled, runnerScheduledID);
+            runners.add(runningScheduled);
+        }
+        if (iStepDecorator.isFused())
+            return runners;//* Runs on the thread shouting its subject
+        if (runnersController.getDispatcher() != null) {
+            iStepDecorator.setDispatcher(runnersController.getDispatcher());
+            return runners;
+        }
+        //* Spinning on a virtual thread pins its carrier thread, the other virtual threads starve
+        if (runnersController.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS && iStepDecorator.getConfig().getWaitStrategy() == WaitStrategy.BUSY_SPIN)
+            throw new IdentifiableSteppingException(iStepDecorator.getStep().getId(), "WaitStrategy.BUSY_SPIN can't be combined with ExecutionMode.VIRTUAL_THREADS");
+        Running running = new Running(() -> {
+            while (true) {
+                try {
+                    iStepDecorator.openDataSink();
+                    break;//* Returns only once the Step is retired by the autoscaler
+                } catch (Exception e) {
+                    if (!handle(e)) {
+                        logger.debug("Exception was NOT handled successfully, Step is stopped");
+                        break;
+                    } else {
+                        logger.debug("Exception was handled, re-opening DataSink ");
+                    }
+
+                } catch (Error err) {
+                    if (!handle(err)) {
+                        logger.debug("Error was NOT handled successfully, re-opening DataSink");
+                        break;
+                    } else {
+                        logger.debug("Error was handled, re-opening DataSink ");
+                    }
+                }
+            }
+        }, runnersController.getExecutorService());
+        cntr.add(running, iStepDecorator.getId() + ".running");
+        runners.add(running);
+        return runners;
+    }
+
     private void setRunningScheduledDelay(RunningScheduled runningScheduled, StepConfig stepConfig) {
         if (stepConfig.getRunningPeriodicCronDelay() != null) {
             runningScheduled.setDelay(stepConfig.getRunningPeriodicCronDelay(), stepConfig.getRunningInitialDelay(), stepConfig.getRunningPeriodicDelayUnit());
@@ -331,12 +409,131 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
         }
     }
 
-    private void initSteps() {
+    private void initSteps(AlgoStartup startup) throws Exception {
+        startup.forEachStep("init", cntr.<IStepDecorator>getSonOf(IStepDecorator.class), this::initGroup,
+                (step) -> step.init(cntrPublic, new Shouter(step.getStep().getId(), cntr, this)), true);
+    }
+
+    //* The nodes of a parallel Step share a consumer group and their class, they are initialized one after the other
+    private String initGroup(IStepDecorator step) {
+        return isParallel(step) ? step.getDistributionNodeID() : step.getId();
+    }
+
+    private void wireConsumerGroups() {
+        Map<String, ConsumerGroupQ<Message>> groupsByDistributionID = new HashMap<>();
+        for (IStepDecorator step : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
+            if (step.getConfig().isConsumerGroup() && isParallel(step)) {
+                int capacity = step.getConfig().getBoundQueueCapacity();
+                step.setConsumerGroup(groupsByDistributionID.computeIfAbsent(step.getDistributionNodeID(), (id) -> new ConsumerGroupQ<>(capacity)));
+            }
+        }
+    }
+
+    private void wireWorkStealing() {
+        Map<String, List<IStepDecorator>> nodesByDistributionID = new HashMap<>();
         for (IStepDecorator step : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
-            step.init(cntrPublic, new Shouter(step.getStep().getId(), cntr, this));
+            if (step.getConfig().isWorkStealing() && isParallel(step))
+                nodesByDistributionID.computeIfAbsent(step.getDistributionNodeID(), (id) -> new ArrayList<>()).add(step);
+        }
+        for (List<IStepDecorator> nodes : nodesByDistributionID.values()) {
+            wireSiblings(nodes);
         }
     }
 
+    //* Steps following a fused subject are invoked on the shouting thread, they get no DataSink thread
+    private void wireFusion() {
+        for (IStepDecorator step : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
+            for (FollowRequest followRequest : step.listSubjectsToFollow().get()) {
+                if (followRequest.isFused()) {
+                    step.fuse(this);
+                    logger.info("Step - " + step.getStep().getId() + " is fused to the thread shouting " + followRequest.getSubjectType());
+                    break;
+                }
+            }
+        }
+    }
+
+    private void wireSiblings(List<IStepDecorator> nodes) {
+        for (IStepDecorator node : nodes) {
+            List<IStepDecorator> siblings = new ArrayList<>(nodes);
+            siblings.remove(node);
+            node.setSiblings(siblings);
+        }
+    }
+
+    private void autoScale(AutoScaler autoScaler) {
+        try {
+            synchronized (scalingLock) {
+                if (scalingStopped)
+                    return;
+                for (IStepDecorator node : autoScaler.collectStopped()) {
+                    removeNode(autoScaler, node);
+                }
+                int decision = autoScaler.evaluate(autoScaler.backlog(), System.currentTimeMillis());
+                if (decision > 0)
+                    addNode(autoScaler);
+                else if (decision < 0)
+                    retireNode(autoScaler);
+            }
+        } catch (Exception e) {
+            handle(e);
+        } catch (Error err) {
+            handle(err);
+        }
+    }
+
+    //* Same flow as init, the Step starts receiving updates once attached to its Subjects
+    private void addNode(AutoScaler autoScaler) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+        IStepDecorator template = autoScaler.getTemplate();
+        StepDecorator node = duplicateNode(template, autoScaler.nextIndex());
+        if (template.getConsumerGroup() != null)
+            node.setConsumerGroup(template.getConsumerGroup());
+        node.init(cntrPublic, new Shouter(node.getStep().getId(), cntr, this));
+        node.onRestate();
+        autoScaler.add(node);
+        if (node.getConfig().isWorkStealing())
+            wireSiblings(autoScaler.getNodes());
+        List<IRunning> runners = initRunners(node);
+        node.attachSubjects();
+        for (IRunning running : runners) {
+            running.awake();
+        }
+        logger.info("Autoscaling added Step - " + node.getStep().getId() + ", " + autoScaler.getNodes().size() + " nodes");
+    }
+
+    //* The Step stops receiving updates once detached, its DataSink exits after processing what was already queued
+    private void retireNode(AutoScaler autoScaler) {
+        IStepDecorator node = autoScaler.retire();
+        for (ISubject subject : cntr.<ISubject>getSonOf(ISubject.class)) {
+            subject.detach(node);
+        }
+        if (node.getConfig().isWorkStealing()) {
+            node.setSiblings(new ArrayList<>());
+            wireSiblings(autoScaler.getNodes());
+        }
+        node.retire();
+        logger.info("Autoscaling retired Step - " + node.getStep().getId() + ", " + autoScaler.getNodes().size() + " nodes");
+    }
+
+    private void removeNode(AutoScaler autoScaler, IStepDecorator node) {
+        node.handOverQueueSubject(autoScaler.getNodes());
+        String runnerScheduledID = node.getStep().getId() + ".runningScheduled";
+        RunningScheduled runningScheduled = cntr.getById(runnerScheduledID);
+        if (runningScheduled != null) {
+            runningScheduled.close();//* Interrupts a tick still waiting for the Step
+            cntr.remove(runnerScheduledID);
+        }
+        cntr.remove(node.getId() + ".running");
+        try {
+            node.close();
+        } catch (IOException e) {
+            logger.error("Failed to close retired Step - " + node.getStep().getId(), e);
+        }
+        cntr.remove(node.getId());
+        cntr.remove(node.getStep().getId());
+        logger.info("Autoscaling removed Step - " + node.getStep().getId());
+    }
+
     private void attachSubjects() {
         List<IStepDecorator> iStepDecoratorList = cntr.<IStepDecorator>getSonOf(IStepDecorator.class);
         for (IStepDecorator iStepDecorator : iStepDecoratorList) {
@@ -407,14 +604,30 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
 
     @Override
     public void close() {
+        close(getConfig().getShutdownDrainTimeout() > 0);
+    }
+
+    //* A failing Algo is not drained, the queued messages are dropped
+    private void close(boolean drain) {
         try {
-            if (isClosed)
+            if (!closing.compareAndSet(false, true))
                 return;
 
-            closeStepDecorators();
+            synchronized (scalingLock) {
+                scalingStopped = true;
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drain ? getConfig().getShutdownDrainTimeout() : poisonPillWaitDuration);
+            //* The Algo is still open while draining, the failures of the Steps keep being handled as usual
+            List<IStepDecorator> closedSources = drain ? drain(deadline) : new ArrayList<>();
+            isClosed = true;
+
+            closeShoutPublisher();
+
+            closeStepDecorators(closedSources);
 
             sendPoisonPill();
-            Thread.sleep(poisonPillWaitDuration);
+            awaitPoisonPills(deadline);
 
             closeRunners();
 
@@ -427,10 +640,106 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
         }
     }
 
+    /**
+     * Graceful shutdown. The ticks are stopped and the sources (Steps following no Subject) are retired and killed
+     * first, the messages already queued then flow through the Steps until the whole Algo is quiescent: no message is
+     * queued, processed or shouted asynchronously, and no Step made progress since the previous check. Only then the
+     * Steps are poisoned, so a Step is never killed while upstream Steps may still shout to it.
+     * Once the deadline is exceeded, or a failure is not handled, the messages left are dropped. Returns the sources
+     * that were already closed.
+     */
+    private List<IStepDecorator> drain(long deadline) throws InterruptedException {
+        logger.info("Draining Algo...");
+        long start = System.nanoTime();
+        TickTimer tickTimer = runnersController != null ? runnersController.getTickTimer() : null;
+        if (tickTimer != null)
+            tickTimer.close();
+
+        List<IStepDecorator> steps = new ArrayList<>();
+        List<IStepDecorator> sources = new ArrayList<>();
+        for (IStepDecorator step : cntr.<IStepDecorator>getSonOf(IStepDecorator.class)) {
+            if (step.isFused())
+                continue;//* Runs on the thread of the Step shouting to it
+            if (step.listSubjectsToFollow().size() == 0)
+                sources.add(step);
+            else
+                steps.add(step);
+        }
+        sources.forEach(IStepDecorator::retire);
+        if (!awaitCondition(deadline, () -> isClosed || sources.stream().allMatch((source) -> source.isStopped() || source.isDead()))) {
+            logger.warn("Algo drain deadline exceeded while stopping the sources");
+            return new ArrayList<>();
+        }
+        if (isClosed) {
+            logger.warn("Algo drain aborted, a failure was not handled while stopping the sources");
+            return new ArrayList<>();
+        }
+        for (IStepDecorator source : sources) {
+            closeStepDecorator(source);//* A source shouting from its own threads stops them in onKill
+        }
+
+        long[] previous = null;
+        for (; ; ) {
+            long[] current = quiescentActivities(steps);
+            if (current != null && Arrays.equals(current, previous)) {
+                logger.info("Algo drained in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+                return sources;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                StringBuilder left = new StringBuilder();
+                for (IStepDecorator step : steps) {
+                    if (step.getQSize() > 0)
+                        left.append(' ').append(step.getStep().getId()).append('=').append(step.getQSize());
+                }
+                logger.warn("Algo drain deadline exceeded, the messages left are dropped:" + left);
+                return sources;
+            }
+            if (isClosed) {
+                logger.warn("Algo drain aborted, a failure was not handled. The messages left are dropped");
+                return sources;
+            }
+            previous = current;
+            Thread.sleep(DRAIN_POLL_INTERVAL);
+        }
+    }
+
+    //* Null unless all the Steps are idle with nothing queued and no async shout is in flight
+    private long[] quiescentActivities(List<IStepDecorator> steps) {
+        ShoutPublisher shoutPublisher = cntr.getById(BuiltinTypes.STEPPING_SHOUT_PUBLISHER.name());
+        if (shoutPublisher != null && !shoutPublisher.isIdle())
+            return null;
+        long[] activities = new long[steps.size()];
+        for (int i = 0; i < activities.length; i++) {
+            IStepDecorator step = steps.get(i);
+            if (step.isDead() || step.isStopped())
+                continue;
+            activities[i] = step.getActivity();
+            if ((activities[i] & 1) != 0 || step.hasPending())
+                return null;
+        }
+        return activities;
+    }
+
+    //* The Steps' DataSinks exit once they take the poison pill, or are interrupted by closeRunners() after the deadline
+    private void awaitPoisonPills(long deadline) throws InterruptedException {
+        List<IStepDecorator> steps = cntr.getSonOf(IStepDecorator.class);
+        if (!awaitCondition(deadline, () -> steps.stream().allMatch((step) -> step.isFused() || step.isDead() || step.isStopped())))
+            logger.warn("Some Steps didn't take the poison pill in time, interrupting them");
+    }
+
+    private boolean awaitCondition(long deadline, BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline >= 0)
+                return false;
+            Thread.sleep(DRAIN_POLL_INTERVAL);
+        }
+        return true;
+    }
+
     private void closeAndKillIfNeeded(Exception e) {
         try {
             logger.error("Try to close and kill", e);
-            close();
+            close(false);
         } finally {
             if (containsInChain(e, SteppingSystemCriticalException.class)) {
                 killProcess();
@@ -471,6 +780,17 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
         }
     }
 
+    private void closeShoutPublisher() {
+        logger.debug("Closing Shout Publisher");
+        try {
+            ShoutPublisher shoutPublisher = cntr.getById(BuiltinTypes.STEPPING_SHOUT_PUBLISHER.name());
+            if (shoutPublisher != null)
+                shoutPublisher.close();
+        } catch (Exception e) {
+            logger.error("Failed to close Shout Publisher in Algo " + this.algo.getClass(), e);
+        }
+    }
+
     private void closeAlgo() {
         logger.debug("Closing Algo");
         try {
@@ -480,32 +800,34 @@ class AlgoDecorator implements IExceptionHandler, IAlgoDecorator {
         }
     }
 
-    private void closeStepDecorators() {
+    private void closeStepDecorators(List<IStepDecorator> closed) {
         logger.debug("Closing Closeables");
         try {
-            List<Closeable> closeables = cntr.getSonOf(IStepDecorator.class);
-            for (Closeable closable : closeables) {
-                try {
-                    closable.close();
-                } catch (Exception e) {
-                    logger.error("Failed to close a closeable object, continuing with the next one");
-                }
+            List<IStepDecorator> steps = cntr.getSonOf(IStepDecorator.class);
+            for (IStepDecorator step : steps) {
+                if (!closed.contains(step))
+                    closeStepDecorator(step);
             }
         } catch (Exception e) {
             logger.error("Failed to close Closeables in Algo " + this.algo.getClass(), e);
         }
     }
 
+    private void closeStepDecorator(Closeable closable) {
+        try {
+            closable.close();
+        } catch (Exception e) {
+            logger.error("Failed to close a closeable object, continuing with the next one");
+        }
+    }
+
     private void sendPoisonPill() {
         logger.debug("Sending Poison Pill");
         try {
             List<IStepDecorator> stepDecorators = cntr.getSonOf(IStepDecorator.class);
             for (IStepDecorator step : stepDecorators) {
-                step.clearQueueSubject();
-                boolean poisonSent = step.offerQueueSubjectUpdate(new Data("cyanide"), "POISON-PILL");
-                if (!poisonSent) {
-                    logger.error("Could not send a poison pill for Step: " + step.getId());
-                }
+                //* The control lane is checked before the data backlog, no need to clear the queue to get the pill through
+                step.queueControl(new Data("cyanide"), "POISON-PILL");
             }
         } catch (Exception e) {
             logger.error("Failed to send poison pill in Algo " + this.algo.getClass(), e);
@@ -0,0 +1,183 @@
+package com.imperva.stepping;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the phases of AlgoDecorator.init() and times them. The per Step phases (Steps' init and onRestate) run in
+ * parallel on a bounded pool, Steps of the same group (the nodes of a parallel Step, sharing a consumer group and their
+ * class) run one after the other in the order they were given. With a parallelism of 1 they all run one after the other
+ * on the calling thread. The timings are logged once the Algo started.
+ *
+ * Not thread safe, driven by the thread initializing the Algo.
+ */
+class AlgoStartup implements Closeable {
+    private static final int REPORTED_SLOWEST_STEPS = 10;
+    private final int parallelism;
+    private final long startTime = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final List<StepTiming> stepTimings = Collections.synchronizedList(new ArrayList<>());
+    private ExecutorService executor;
+
+    interface IPhase {
+        void run() throws Exception;
+    }
+
+    AlgoStartup(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    void phase(String name, IPhase phase) throws Exception {
+        long start = System.nanoTime();
+        try {
+            phase.run();
+        } finally {
+            phases.merge(name, System.nanoTime() - start, Long::sum);
+        }
+    }
+
+    /**
+     * Runs the action for all the Steps and waits for all of them. When failFast, the first failure is rethrown and the
+     * groups not started yet are skipped, otherwise failures are left to the action.
+     */
+    void forEachStep(String name, List<IStepDecorator> steps, Function<IStepDecorator, String> group, Consumer<IStepDecorator> action, boolean failFast) throws Exception {
+        phase(name, () -> {
+            Map<String, List<IStepDecorator>> groups = new LinkedHashMap<>();
+            for (IStepDecorator step : steps) {
+                groups.computeIfAbsent(group.apply(step), (key) -> new ArrayList<>()).add(step);
+            }
+            if (parallelism == 1) {
+                for (List<IStepDecorator> grouped : groups.values()) {
+                    try {
+                        run(name, grouped, action);
+                    } catch (RuntimeException | Error e) {
+                        if (failFast)
+                            throw e;
+                    }
+                }
+                return;
+            }
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<IStepDecorator> grouped : groups.values()) {
+                futures.add(executor().submit(() -> run(name, grouped, action)));
+            }
+            await(futures, failFast);
+        });
+    }
+
+    private void run(String name, List<IStepDecorator> grouped, Consumer<IStepDecorator> action) {
+        for (IStepDecorator step : grouped) {
+            long start = System.nanoTime();
+            try {
+                action.accept(step);
+            } finally {
+                stepTimings.add(new StepTiming(name, step.getStep().getId(), System.nanoTime() - start));
+            }
+        }
+    }
+
+    private void await(List<Future<?>> futures, boolean failFast) throws Exception {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null && failFast) {
+                    failure = e.getCause();
+                    for (Future<?> other : futures) {
+                        other.cancel(false);
+                    }
+                }
+            } catch (CancellationException e) {
+                //* Skipped after a failure
+            }
+        }
+        if (failure instanceof Exception)
+            throw (Exception) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger index = new AtomicInteger();
+            executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+                Thread thread = new Thread(runnable, "stepping.startup-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    String report() {
+        StringBuilder report = new StringBuilder("Algo started in ").append(millis(System.nanoTime() - startTime)).append("ms. Phases:");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            report.append(' ').append(phase.getKey()).append('=').append(millis(phase.getValue())).append("ms");
+        }
+        List<StepTiming> slowest;
+        synchronized (stepTimings) {
+            slowest = new ArrayList<>(stepTimings);
+        }
+        if (slowest.isEmpty())
+            return report.toString();
+        slowest.sort((first, second) -> Long.compare(second.duration, first.duration));
+        report.append(". Slowest Steps:");
+        for (StepTiming timing : slowest.subList(0, Math.min(REPORTED_SLOWEST_STEPS, slowest.size()))) {
+            report.append(' ').append(timing);
+        }
+        return report.toString();
+    }
+
+    //* All the Steps' timings, in completion order
+    List<String> stepReport() {
+        List<String> report = new ArrayList<>();
+        synchronized (stepTimings) {
+            for (StepTiming timing : stepTimings) {
+                report.add(timing.toString());
+            }
+        }
+        return report;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static class StepTiming {
+        private final String phase;
+        private final String stepId;
+        private final long duration;
+
+        StepTiming(String phase, String stepId, long duration) {
+            this.phase = phase;
+            this.stepId = stepId;
+            this.duration = duration;
+        }
+
+        @Override
+        public String toString() {
+            return stepId + "." + phase + "=" + millis(duration) + "ms";
+        }
+    }
+}
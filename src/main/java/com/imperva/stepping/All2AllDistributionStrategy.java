@@ -6,13 +6,24 @@ public class All2AllDistributionStrategy extends IDistributionStrategy {
 
     @Override
     public void distribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
-        Distribution[] arr = new Distribution[iStepDecorators.size()];
+        Distribution[] arr = null;
 
+        //* Fast path - no allocations unless some of the queues are full
         for (int inc = 0; inc < iStepDecorators.size(); inc++) {
-            arr[inc] = new Distribution(iStepDecorators.get(inc), data, subjectType);
+            IStepDecorator iStepDecorator = iStepDecorators.get(inc);
+            if (!iStepDecorator.offerQueueSubjectUpdate(data, subjectType)) {
+                if (arr == null)
+                    arr = new Distribution[iStepDecorators.size()];
+                arr[inc] = new Distribution(iStepDecorator, data, subjectType);
+            }
         }
 
-        distribute(arr);
+        if (arr != null)
+            distribute(arr);
     }
-}
 
+    //* Every node got its own copy, distributing it again would duplicate it
+    @Override
+    void redistribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.imperva.stepping;
+
+import java.lang.reflect.Array;
+
+/**
+ * The [from, to) range of an array, handed to each node by EvenDistributionStrategy when the Data value is a primitive
+ * array. The array itself is shared by all the nodes and must not be modified.
+ */
+public class ArraySlice {
+    private final Object array;
+    private final int from;
+    private final int to;
+
+    ArraySlice(Object array, int from, int to) {
+        this.array = array;
+        this.from = from;
+        this.to = to;
+    }
+
+    //* The whole original array, use getFrom() and getTo() to iterate the slice
+    public Object getArray() {
+        return array;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    //* Boxes the element, prefer casting getArray() in hot loops
+    public Object get(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return Array.get(array, from + index);
+    }
+}
@@ -0,0 +1,81 @@
+package com.imperva.stepping;
+
+public class AutoScaleConfig {
+    private boolean enable;
+    private int minNodes;
+    private int maxNodes;
+    private int scaleUpQueueDepth;//* Average queued messages per node
+    private int scaleDownQueueDepth;//* Average queued messages per node
+    private long coolDown;//* Milliseconds
+    private long evaluationInterval;//* Milliseconds
+
+    public AutoScaleConfig() {
+        SteppingProperties stepProp = SteppingProperties.getInstance();
+        enable = new Boolean(stepProp.getProperty("stepping.default.step.autoscale.enable"));
+        minNodes = new Integer(stepProp.getProperty("stepping.default.step.autoscale.min.nodes"));
+        maxNodes = new Integer(stepProp.getProperty("stepping.default.step.autoscale.max.nodes"));
+        scaleUpQueueDepth = new Integer(stepProp.getProperty("stepping.default.step.autoscale.scale.up.queue.depth"));
+        scaleDownQueueDepth = new Integer(stepProp.getProperty("stepping.default.step.autoscale.scale.down.queue.depth"));
+        coolDown = new Long(stepProp.getProperty("stepping.default.step.autoscale.cooldown"));
+        evaluationInterval = new Long(stepProp.getProperty("stepping.default.step.autoscale.evaluation.interval"));
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public void setEnable(boolean enable) {
+        this.enable = enable;
+    }
+
+    public int getMinNodes() {
+        return minNodes;
+    }
+
+    public void setMinNodes(int minNodes) {
+        this.minNodes = minNodes;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    public int getScaleUpQueueDepth() {
+        return scaleUpQueueDepth;
+    }
+
+    //* A node is added when the average queue depth reaches it and the backlog is not shrinking
+    public void setScaleUpQueueDepth(int scaleUpQueueDepth) {
+        this.scaleUpQueueDepth = scaleUpQueueDepth;
+    }
+
+    public int getScaleDownQueueDepth() {
+        return scaleDownQueueDepth;
+    }
+
+    //* A node is removed when the average queue depth drops to it
+    public void setScaleDownQueueDepth(int scaleDownQueueDepth) {
+        this.scaleDownQueueDepth = scaleDownQueueDepth;
+    }
+
+    public long getCoolDown() {
+        return coolDown;
+    }
+
+    //* Minimum time between two scaling decisions, also applied after the Algo starts
+    public void setCoolDown(long coolDown) {
+        this.coolDown = coolDown;
+    }
+
+    public long getEvaluationInterval() {
+        return evaluationInterval;
+    }
+
+    public void setEvaluationInterval(long evaluationInterval) {
+        this.evaluationInterval = evaluationInterval;
+    }
+}
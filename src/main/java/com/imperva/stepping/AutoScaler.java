@@ -0,0 +1,118 @@
+package com.imperva.stepping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scaling decisions of a single distribution node ID. Evaluated periodically by the Algo with the backlog of all the
+ * nodes: a node is added when the average queue depth reaches scaleUpQueueDepth and the backlog did not shrink since
+ * the previous evaluation (the nodes don't keep up with the incoming rate), a node is removed when the average queue
+ * depth drops to scaleDownQueueDepth. At most one node is added or removed per coolDown period.
+ *
+ * Not thread safe, evaluated by a single scheduled thread.
+ */
+class AutoScaler {
+    private final IStepDecorator template;
+    private final AutoScaleConfig config;
+    private final List<IStepDecorator> nodes = new ArrayList<>();
+    private final List<IStepDecorator> retired = new ArrayList<>();
+    private final Set<IStepDecorator> stopped = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int nextIndex;
+    private long lastScaled;
+    private long previousBacklog = -1;
+
+    AutoScaler(IStepDecorator template, AutoScaleConfig config, long now) {
+        if (config.getMinNodes() <= 0 || config.getMaxNodes() < config.getMinNodes())
+            throw new IdentifiableSteppingException(template.getStep().getId(), "Autoscaling requires 0 < MinNodes <= MaxNodes");
+        if (config.getScaleDownQueueDepth() >= config.getScaleUpQueueDepth())
+            throw new IdentifiableSteppingException(template.getStep().getId(), "Autoscaling requires ScaleDownQueueDepth < ScaleUpQueueDepth");
+        if (config.getEvaluationInterval() <= 0)
+            throw new IdentifiableSteppingException(template.getStep().getId(), "Autoscaling evaluation interval must be a positive number");
+        this.template = template;
+        this.config = config;
+        this.lastScaled = now;
+    }
+
+    //* 1 to add a node, -1 to remove one, 0 otherwise
+    int evaluate(long backlog, long now) {
+        int size = nodes.size();
+        boolean shrinking = previousBacklog >= 0 && backlog < previousBacklog;
+        previousBacklog = backlog;
+        if (now - lastScaled < config.getCoolDown())
+            return 0;
+
+        long depth = backlog / Math.max(size, 1);
+        if (size < config.getMaxNodes() && depth >= config.getScaleUpQueueDepth() && !shrinking) {
+            lastScaled = now;
+            return 1;
+        }
+        if (size > config.getMinNodes() && depth <= config.getScaleDownQueueDepth()) {
+            lastScaled = now;
+            return -1;
+        }
+        return 0;
+    }
+
+    //* A consumer group node reports the backlog of the whole group
+    long backlog() {
+        if (template.getConsumerGroup() != null)
+            return template.getApproximateQSize();
+        long backlog = 0;
+        for (IStepDecorator node : nodes) {
+            backlog += node.getApproximateQSize();
+        }
+        return backlog;
+    }
+
+    IStepDecorator getTemplate() {
+        return template;
+    }
+
+    AutoScaleConfig getConfig() {
+        return config;
+    }
+
+    List<IStepDecorator> getNodes() {
+        return nodes;
+    }
+
+    void add(IStepDecorator node) {
+        nodes.add(node);
+    }
+
+    //* The latest added node, never the template
+    IStepDecorator retire() {
+        IStepDecorator node = nodes.remove(nodes.size() - 1);
+        retired.add(node);
+        return node;
+    }
+
+    //* Retired nodes whose DataSink was already stopped at the previous evaluation, so most late distributions that
+    //* picked the node before it was detached are in its queue already. Later ones are forwarded, see handOverQueueSubject
+    List<IStepDecorator> collectStopped() {
+        List<IStepDecorator> collected = new ArrayList<>();
+        Iterator<IStepDecorator> iterator = retired.iterator();
+        while (iterator.hasNext()) {
+            IStepDecorator node = iterator.next();
+            if (!node.isStopped() || stopped.add(node))
+                continue;
+            stopped.remove(node);
+            iterator.remove();
+            collected.add(node);
+        }
+        return collected;
+    }
+
+    //* Node indexes are never reused, the ids of removed nodes may still be referenced (logs, metrics)
+    int nextIndex() {
+        return nextIndex++;
+    }
+
+    void setNextIndex(int nextIndex) {
+        this.nextIndex = nextIndex;
+    }
+}
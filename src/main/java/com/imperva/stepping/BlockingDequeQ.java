@@ -0,0 +1,185 @@
+package com.imperva.stepping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * signal() pushes a WAKE marker to the head of the deque, at most one at a time. The marker is never handed out
+ * and is not counted by size().
+ *
+ * LinkedBlockingDeque.size() takes the deque's lock, approximateSize() is computed from lock free counters instead:
+ * producers add to a LongAdder, the consumer alone advances the removed counter, removals by other threads (clear(),
+ * work stealing) are counted apart.
+ *
+ * This is the only queue that may be stolen from, LinkedBlockingDeque is safe for multiple consumers.
+ */
+@SuppressWarnings("unchecked")
+class BlockingDequeQ<T> implements IQueue<T> {
+    private static final Object WAKE = new Object();
+
+    private final LinkedBlockingDeque<Object> deque;
+    private final int capacity;
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+    private final LongAdder added = new LongAdder();
+    private final AtomicLong removed = new RingBufferQ.PaddedAtomicLong();
+    private final AtomicLong removedByOthers = new AtomicLong();
+
+    BlockingDequeQ(int capacity) {
+        this.capacity = capacity;
+        this.deque = capacity > 0 ? new LinkedBlockingDeque<>(capacity) : new LinkedBlockingDeque<>();
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (!deque.offer(item))
+            return false;
+        added.increment();
+        return true;
+    }
+
+    @Override
+    public <A, B> boolean offer(IEnvelopeWriter<T, A, B> writer, A a, B b) {
+        return offer(writer.create(a, b));
+    }
+
+    @Override
+    public void put(T item) throws InterruptedException {
+        deque.put(item);
+        added.increment();
+    }
+
+    @Override
+    public <A, B> void put(IEnvelopeWriter<T, A, B> writer, A a, B b) throws InterruptedException {
+        put(writer.create(a, b));
+    }
+
+    @Override
+    public T poll() {
+        Object item = deque.poll();
+        if (item == WAKE) {
+            wakeQueued.set(false);
+            item = deque.poll();
+        }
+        if (item != null)
+            removed.lazySet(removed.get() + 1);
+        return (T) item;
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        Object item = deque.take();
+        if (item == WAKE) {
+            wakeQueued.set(false);
+            return null;
+        }
+        removed.lazySet(removed.get() + 1);
+        return (T) item;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Object item = deque.poll(timeout, unit);
+        if (item == WAKE) {
+            wakeQueued.set(false);
+            return null;
+        }
+        if (item != null)
+            removed.lazySet(removed.get() + 1);
+        return (T) item;
+    }
+
+    @Override
+    public void signal() {
+        //* When the deque is full the consumer is not blocked anyway
+        if (wakeQueued.compareAndSet(false, true) && !deque.offerFirst(WAKE))
+            wakeQueued.set(false);
+    }
+
+    @Override
+    public void release() {
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> collection, int maxItems) {
+        int drained = 0;
+        while (drained < maxItems) {
+            T item = poll();
+            if (item == null)
+                break;
+            collection.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public T peek() {
+        Object item = deque.peek();
+        if (item == WAKE) {
+            //* Not consumed, the pending wake up is still delivered
+            for (Object o : deque) {
+                if (o != WAKE)
+                    return (T) o;
+            }
+            return null;
+        }
+        return (T) item;
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, deque.size() - (wakeQueued.get() ? 1 : 0));
+    }
+
+    @Override
+    public int approximateSize() {
+        long size = added.sum() - removed.get() - removedByOthers.get();
+        return (int) Math.max(0, Math.min(size, Integer.MAX_VALUE));
+    }
+
+    //* May be called by any thread, so the removed items are counted apart from the consumer's counter
+    @Override
+    public void clear() {
+        List<Object> items = new ArrayList<>();
+        deque.drainTo(items);
+        wakeQueued.set(false);
+        removedByOthers.addAndGet(items.size() - (items.contains(WAKE) ? 1 : 0));
+    }
+
+    /**
+     * Any thread. Removes a stealable item looking at up to maxScanned items from the tail. Items that can't be stolen
+     * pile up at the tail while the thieves take the ones around them, so the head is scanned next as a fallback.
+     */
+    T steal(Predicate<? super T> stealable, int maxScanned) {
+        T item = steal(deque.descendingIterator(), true, stealable, maxScanned);
+        return item != null ? item : steal(deque.iterator(), false, stealable, maxScanned);
+    }
+
+    private T steal(Iterator<Object> iterator, boolean fromTail, Predicate<? super T> stealable, int maxScanned) {
+        for (int scanned = 0; scanned < maxScanned && iterator.hasNext(); scanned++) {
+            Object item = iterator.next();
+            if (item == WAKE || !stealable.test((T) item))
+                continue;
+            //* Fails if the owner took it in the meantime, items are compared by identity
+            boolean removed = fromTail ? deque.removeLastOccurrence(item) : deque.removeFirstOccurrence(item);
+            if (!removed)
+                continue;
+            removedByOthers.incrementAndGet();
+            return (T) item;
+        }
+        return null;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
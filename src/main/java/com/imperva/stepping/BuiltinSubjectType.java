@@ -6,5 +6,6 @@ public enum BuiltinSubjectType {
     STEPPING_TIMEOUT_CALLBACK,
     STEPPING_EXTERNAL_PROPERTIES,
     STEPPING_RUNTIME_METADATA,
-    STEPPING_STEPS_STATISTICS_READY
+    STEPPING_STEPS_STATISTICS_READY,
+    STEPPING_RETIRE
 }
@@ -2,4 +2,5 @@ package com.imperva.stepping;
 
 enum BuiltinTypes {
     STEPPING_SHOUTER,
+    STEPPING_SHOUT_PUBLISHER,
 }
@@ -0,0 +1,103 @@
+package com.imperva.stepping;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps only the latest pending Data per key of a single conflated subject.
+ *
+ * The first update of a key queues a marker message that references the key's slot, later updates replace the
+ * slot's Data in place as long as the marker was not consumed yet. When the Step takes the marker it receives the
+ * latest Data of that key, so a key never has more than one message in the queue.
+ *
+ * A drained slot is retired (DEAD) before it is removed from the map so late publishers never write to a slot
+ * nobody is going to read, they help removing it and retry with a fresh one.
+ */
+class Conflation {
+    private static final Data DEAD = new Data(null);
+
+    private final String subjectType;
+    private final IKeyExtractor keyExtractor;
+    private final ConcurrentHashMap<Object, Slot> slots = new ConcurrentHashMap<>();
+
+    Conflation(String subjectType, IKeyExtractor keyExtractor) {
+        if (keyExtractor == null)
+            throw new SteppingException("Conflation key extractor is required");
+        this.subjectType = subjectType;
+        this.keyExtractor = keyExtractor;
+    }
+
+    interface IMarkerQueue {
+        boolean queue(Data marker, String subjectType, boolean blocking);
+    }
+
+    /**
+     * Returns false only when not blocking and the marker could not be queued, the Data is then not kept either
+     */
+    boolean publish(Data data, IMarkerQueue markerQueue, boolean blocking) {
+        Object key = keyExtractor.extract(data);
+        if (key == null)
+            throw new SteppingException("Conflation key can't be null");
+
+        for (; ; ) {
+            Slot slot = slots.computeIfAbsent(key, Slot::new);
+            Data current = slot.latest.get();
+            if (current == DEAD) {
+                slots.remove(key, slot);
+                continue;
+            }
+            if (!slot.latest.compareAndSet(current, data))
+                continue;
+            if (current != null)
+                return true;//* Replaced in place, the pending marker delivers it
+
+            if (markerQueue.queue(slot.marker, subjectType, blocking))
+                return true;
+            if (slot.latest.compareAndSet(data, null))
+                return false;
+            //* Another publisher already replaced our Data, it counts on our marker
+            markerQueue.queue(slot.marker, subjectType, true);
+            return true;
+        }
+    }
+
+    //* Step side. Returns the latest Data of the marker's key and retires the slot, null if the key was cleared
+    static Data take(Data marker) {
+        Slot slot = (Slot) marker.getValue();
+        Data data = slot.latest.getAndSet(null);
+        if (slot.latest.compareAndSet(null, DEAD))
+            slot.conflation().slots.remove(slot.key, slot);
+        return data != DEAD ? data : null;
+    }
+
+    //* The markers were dropped with the Step's queue, the slots are retired so that their keys are queued again. A marker
+    //* queued concurrently finds its slot cleared, see take()
+    void clear() {
+        for (Slot slot : slots.values()) {
+            slot.latest.set(DEAD);
+            slots.remove(slot.key, slot);
+        }
+    }
+
+    static boolean isMarker(Data data) {
+        return data.getValue() instanceof Slot;
+    }
+
+    int pendingKeys() {
+        return slots.size();
+    }
+
+    private class Slot {
+        private final Object key;
+        private final AtomicReference<Data> latest = new AtomicReference<>();
+        private final Data marker = new Data(this);
+
+        Slot(Object key) {
+            this.key = key;
+        }
+
+        Conflation conflation() {
+            return Conflation.this;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.imperva.stepping;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single Multi Producer Multi Consumer queue shared by all the nodes of a distribution node ID (consumer group).
+ * Each node consumes through its own Member, so every message costs exactly one enqueue and one dequeue whatever the
+ * number of nodes.
+ *
+ * Every Member waits on its own Condition: a new item wakes up a single idle Member and signal() wakes up the
+ * Member it was called on, so a control item queued for a specific node always reaches it.
+ */
+class ConsumerGroupQ<T> {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<T> items = new ArrayDeque<>();
+    private final ArrayDeque<Member> idle = new ArrayDeque<>();
+    private final int capacity;
+    private volatile int count;
+
+    ConsumerGroupQ(int capacity) {
+        if (capacity < 0)
+            throw new SteppingException("Consumer group queue capacity must be a positive number");
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+    }
+
+    Member member() {
+        return new Member();
+    }
+
+    private boolean enqueue(T item, boolean blocking) throws InterruptedException {
+        if (item == null)
+            throw new NullPointerException();
+        lock.lockInterruptibly();
+        try {
+            while (count == capacity) {
+                if (!blocking)
+                    return false;
+                notFull.await();
+            }
+            items.addLast(item);
+            count++;
+            Member member = idle.pollFirst();
+            if (member != null)
+                member.wakeUp.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //* Must be called while holding the lock
+    private T dequeue() {
+        T item = items.pollFirst();
+        if (item != null) {
+            count--;
+            notFull.signal();
+        }
+        return item;
+    }
+
+    class Member implements IQueue<T> {
+        private final Condition wakeUp = lock.newCondition();
+        private boolean signalled;//* Guarded by the lock
+
+        @Override
+        public boolean offer(T item) {
+            try {
+                return enqueue(item, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public <A, B> boolean offer(IEnvelopeWriter<T, A, B> writer, A a, B b) {
+            return offer(writer.create(a, b));
+        }
+
+        @Override
+        public void put(T item) throws InterruptedException {
+            enqueue(item, true);
+        }
+
+        @Override
+        public <A, B> void put(IEnvelopeWriter<T, A, B> writer, A a, B b) throws InterruptedException {
+            enqueue(writer.create(a, b), true);
+        }
+
+        @Override
+        public T poll() {
+            lock.lock();
+            try {
+                return dequeue();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public T take() throws InterruptedException {
+            return await(false, 0);
+        }
+
+        @Override
+        public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return await(true, unit.toNanos(timeout));
+        }
+
+        private T await(boolean timed, long nanos) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                for (; ; ) {
+                    if (signalled) {
+                        signalled = false;
+                        return null;
+                    }
+                    T item = dequeue();
+                    if (item != null)
+                        return item;
+                    if (timed && nanos <= 0)
+                        return null;
+                    idle.addLast(this);
+                    try {
+                        if (timed)
+                            nanos = wakeUp.awaitNanos(nanos);
+                        else
+                            wakeUp.await();
+                    } finally {
+                        //* Already removed when woken up by a new item
+                        idle.remove(this);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signal() {
+            lock.lock();
+            try {
+                signalled = true;
+                wakeUp.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void release() {
+        }
+
+        @Override
+        public int drainTo(Collection<? super T> collection, int maxItems) {
+            lock.lock();
+            try {
+                int drained = 0;
+                T item;
+                while (drained < maxItems && (item = dequeue()) != null) {
+                    collection.add(item);
+                    drained++;
+                }
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public T peek() {
+            lock.lock();
+            try {
+                return items.peekFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //* The whole group's backlog
+        @Override
+        public int size() {
+            return count;
+        }
+
+        //* Clears the whole group's backlog
+        @Override
+        public void clear() {
+            lock.lock();
+            try {
+                items.clear();
+                count = 0;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int capacity() {
+            return capacity == Integer.MAX_VALUE ? 0 : capacity;
+        }
+    }
+}
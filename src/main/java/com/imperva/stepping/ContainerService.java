@@ -26,6 +26,15 @@ public class ContainerService extends ContainerDefaultImpl {
         }
     }
 
+    public TickMetrics getTickMetrics(String stepID) {
+        try {
+            String decoratorID = stepID + DECORATOR;
+            return ((IStepDecorator) ((Container) getById(STEPPING_PRIVATE_CONTAINER)).getById(decoratorID)).getTickMetrics();
+        } catch (Exception e) {
+            throw new SteppingException("Tick metrics not found. Please make sure you use the correct Step ID");
+        }
+    }
+
     //* FOR INTERNAL USAGE ONLY - cron expression must be re-evaluated every tickcallback, this is possible only with StepConfig API
     void changeDelay(String stepID, String cron) {
         try {
@@ -0,0 +1,103 @@
+package com.imperva.stepping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ExecutionMode.DISPATCHER runtime. Steps don't own a thread, a Step is scheduled on a fixed pool of workers only when
+ * a message is queued to it, then processes up to 'throughput' messages and yields the worker to the next scheduled
+ * Step (actor-dispatcher model). A Step is never scheduled twice at the same time, so the single thread per Step
+ * guarantee is kept: the Step may move between workers but its messages are processed one at a time, in order.
+ *
+ * Producers blocking on a full queue from a worker are compensated by the pool (see Q.queue()) so a graph of bounded
+ * queues can't starve the workers.
+ */
+class Dispatcher implements Closeable {
+    private final Logger logger = LoggerFactory.getLogger(Dispatcher.class);
+    private final ForkJoinPool pool;
+    private final int throughput;
+    private final IExceptionHandler exceptionHandler;
+
+    Dispatcher(int parallelism, int throughput, IExceptionHandler exceptionHandler) {
+        if (parallelism <= 0)
+            parallelism = Runtime.getRuntime().availableProcessors();
+        if (throughput <= 0)
+            throw new SteppingException("Dispatcher throughput must be a positive number");
+        this.throughput = throughput;
+        this.exceptionHandler = exceptionHandler;
+        //* asyncMode, scheduled Steps are run in FIFO order
+        this.pool = new ForkJoinPool(parallelism, (forkJoinPool) -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            worker.setName("stepping.dispatcher-" + worker.getPoolIndex());
+            return worker;
+        }, null, true);
+    }
+
+    DispatchedStep register(IStepDecorator step) {
+        return new DispatchedStep(step);
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.SECONDS))
+                logger.info("Dispatcher workers are still running");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    class DispatchedStep implements Runnable {
+        private final IStepDecorator step;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean stopped;
+
+        private DispatchedStep(IStepDecorator step) {
+            this.step = step;
+        }
+
+        //* Called by the producers after queueing, any thread
+        void schedule() {
+            if (stopped || scheduled.get() || !scheduled.compareAndSet(false, true))
+                return;
+            try {
+                pool.execute(this);
+            } catch (Exception e) {
+                scheduled.set(false);//* Closing
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                step.dispatch(throughput);
+            } catch (Exception e) {
+                if (!exceptionHandler.handle(e)) {
+                    logger.debug("Exception was NOT handled successfully, Step is stopped");
+                    stopped = true;
+                }
+            } catch (Error err) {
+                if (!exceptionHandler.handle(err)) {
+                    logger.debug("Error was NOT handled successfully, Step is stopped");
+                    stopped = true;
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            //* A message queued while running may have found the Step still scheduled
+            if (step.isDispatchable())
+                schedule();
+        }
+    }
+}
@@ -1,39 +1,57 @@
 package com.imperva.stepping;
 
-import java.util.ArrayList;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-//todo - very expensive - fix
+/**
+ * Splits the Data value into even chunks, one per node, without copying it. Chunk sizes differ by one item at most and
+ * nodes get no Data at all when there are fewer items than nodes.
+ *
+ * - List: a read-only subList() view of the original List
+ * - Object array: a read-only List view of its range
+ * - Primitive array: an ArraySlice over the original array
+ * - ISplittable: whatever its slice() returns
+ *
+ * Chunks are views, the published value must not be modified once published.
+ */
 public class EvenDistributionStrategy extends IDistributionStrategy {
     @Override
     public void distribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
-        if (!(data.getValue() instanceof List))
-            // todo- consider maybe we need an IdentifiableSteppingException in the future
-            throw new SteppingException("EvenDistributionStrategy not supported");
+        Object value = data.getValue();
+        int size = sizeOf(value);
+        int nodes = iStepDecorators.size();
 
-        List dataToDistribute = ((List) data.getValue());
-        int chunks = Math.floorDiv(dataToDistribute.size(), iStepDecorators.size());
-
-        List<List> chopped = chopped(dataToDistribute, chunks);
-        if (chopped.size() > iStepDecorators.size()) {
-            chopped.get(chopped.size() - 2).addAll(chopped.get(chopped.size() - 1));
-            chopped.remove(chopped.size() - 1);
-        }
-        Distribution[] arr  = new Distribution[iStepDecorators.size()];
-        for (int u = 0; u < iStepDecorators.size(); u++) {
-            arr[u] = new Distribution(iStepDecorators.get(u),new Data(chopped.get(u)), subjectType);
+        Distribution[] arr = new Distribution[nodes];
+        for (int u = 0; u < nodes; u++) {
+            int from = (int) ((long) size * u / nodes);
+            int to = (int) ((long) size * (u + 1) / nodes);
+            if (from == to)
+                continue;
+            arr[u] = new Distribution(iStepDecorators.get(u), new Data(slice(value, from, to)), subjectType);
         }
         distribute(arr);
     }
 
-    private  <T> List<List<T>> chopped(List<T> list, final int L) {
-        List<List<T>> parts = new ArrayList<List<T>>();
-        final int N = list.size();
-        for (int i = 0; i < N; i += L) {
-            parts.add(new ArrayList<T>(
-                    list.subList(i, Math.min(N, i + L)))
-            );
-        }
-        return parts;
+    private int sizeOf(Object value) {
+        if (value instanceof List)
+            return ((List) value).size();
+        if (value instanceof ISplittable)
+            return ((ISplittable) value).size();
+        if (value != null && value.getClass().isArray())
+            return Array.getLength(value);
+        // todo- consider maybe we need an IdentifiableSteppingException in the future
+        throw new SteppingException("EvenDistributionStrategy not supported");
+    }
+
+    private Object slice(Object value, int from, int to) {
+        if (value instanceof List)
+            return Collections.unmodifiableList(((List) value).subList(from, to));
+        if (value instanceof ISplittable)
+            return ((ISplittable) value).slice(from, to);
+        if (value instanceof Object[])
+            return Collections.unmodifiableList(Arrays.asList((Object[]) value).subList(from, to));
+        return new ArraySlice(value, from, to);
     }
 }
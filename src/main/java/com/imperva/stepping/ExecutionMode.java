@@ -0,0 +1,12 @@
+package com.imperva.stepping;
+
+public enum ExecutionMode {
+    /* Default. Every Step's DataSink and every tick callback scheduler runs on its own platform thread */
+    PLATFORM_THREADS,
+    /* Same threading model on virtual threads, an idle Step costs a few hundred bytes instead of an OS thread.
+       Requires Java 21+, falls back to PLATFORM_THREADS on older JVMs */
+    VIRTUAL_THREADS,
+    /* Steps don't own a thread, they are scheduled on a fixed pool of workers when messages are queued to them,
+       see AlgoConfig.setDispatcherParallelism() and setDispatcherThroughput() */
+    DISPATCHER
+}
@@ -4,6 +4,9 @@ public class FollowRequest {
     private String subjectType;
     private IDistributionStrategy iDistributionStrategy;
     private SubjectUpdateEvent subjectUpdateEvent;
+    private IKeyExtractor keyExtractor;
+    private boolean orderInsensitive;
+    private boolean fused;
 
     public FollowRequest(String subjectName) {
         this.subjectType = subjectName;
@@ -48,4 +51,31 @@ public class FollowRequest {
     public void setSubjectUpdateEvent(SubjectUpdateEvent subjectUpdate) {
         this.subjectUpdateEvent = subjectUpdate;
     }
+
+    public IKeyExtractor getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    //* Makes the subject conflated, see Follower.followConflated()
+    public void setKeyExtractor(IKeyExtractor keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    public boolean isOrderInsensitive() {
+        return orderInsensitive;
+    }
+
+    //* Lets idle sibling nodes steal this subject's messages, see StepConfig.setWorkStealing()
+    public void setOrderInsensitive(boolean orderInsensitive) {
+        this.orderInsensitive = orderInsensitive;
+    }
+
+    public boolean isFused() {
+        return fused;
+    }
+
+    //* The follower Step runs on the shouting thread instead of its own, see Follower.fused()
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
 }
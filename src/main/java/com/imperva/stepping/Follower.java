@@ -32,6 +32,45 @@ public class Follower {
         return this;
     }
 
+    //* Only the latest Data per key is kept in the Step's queue, pending older Data with the same key is replaced in place
+    public Follower followConflated(String subjectType, IKeyExtractor keyExtractor) {
+        FollowRequest followRequest = new FollowRequest(subjectType);
+        followRequest.setKeyExtractor(keyExtractor);
+        toFollow.add(followRequest);
+        return this;
+    }
+
+    public Follower followConflated(String subjectType, IKeyExtractor keyExtractor, IDistributionStrategy distributionStrategy) {
+        FollowRequest followRequest = new FollowRequest(subjectType, distributionStrategy);
+        followRequest.setKeyExtractor(keyExtractor);
+        toFollow.add(followRequest);
+        return this;
+    }
+
+    public Follower followConflated(String subjectType, IKeyExtractor keyExtractor, SubjectUpdateEvent subjectUpdate) {
+        FollowRequest followRequest = new FollowRequest(subjectType, subjectUpdate);
+        followRequest.setKeyExtractor(keyExtractor);
+        toFollow.add(followRequest);
+        return this;
+    }
+
+    //* Marks the last followed subject as order-insensitive, its messages may be processed by an idle sibling node
+    public Follower orderInsensitive() {
+        if (toFollow.isEmpty())
+            throw new SteppingException("orderInsensitive() must follow a follow() call");
+        toFollow.get(toFollow.size() - 1).setOrderInsensitive(true);
+        return this;
+    }
+
+    //* Marks the last followed subject as fused, the Step's onSubjectUpdate() runs on the shouting thread with no queueing.
+    //* The subject must be shouted by a single thread and be the only subject the Step follows
+    public Follower fused() {
+        if (toFollow.isEmpty())
+            throw new SteppingException("fused() must follow a follow() call");
+        toFollow.get(toFollow.size() - 1).setFused(true);
+        return this;
+    }
+
     public int size() {
         return toFollow.size();
     }
@@ -0,0 +1,13 @@
+package com.imperva.stepping;
+
+/**
+ * Serializes the Data of messages spilled to disk by a Step queue, see StepConfig.setSpillOverCodec().
+ * Must be thread safe as it is used by all the publishers of the Step as well as by the Step itself.
+ * Only the Data value (and senderId if needed) should be written, decode() must return a new Data instance.
+ */
+public interface IDataCodec {
+
+    byte[] encode(Data data);
+
+    Data decode(byte[] bytes);
+}
@@ -4,17 +4,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public abstract class IDistributionStrategy {
     private final Logger logger = LoggerFactory.getLogger(AlgoDecorator.class);
-    private static final int MAXIMUM_OFFERS_RETRIES = 10;
-    private static final int WAIT_PERIOD_MILLI = 250;
+    //* Deceleration Mode backs off in microseconds, once its budget is spent the publisher blocks and the Step's
+    //* queue wakes it up as soon as a slot is freed
+    private static final int SPIN_ROUNDS = 8;
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(128);
+    private static final long DECELERATION_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
 
     abstract void distribute(List<IStepDecorator> steps, Data data, String subjectType);
 
+    //* Autoscaling. Data queued to a removed node, distributed again among the remaining nodes
+    void redistribute(List<IStepDecorator> steps, Data data, String subjectType) {
+        distribute(steps, data, subjectType);
+    }
+
     protected void distribute(Distribution[] distributionList) {
         try {
-            distribute(distributionList, 1);
+            decelerate(distributionList);
         } catch (Exception ex) {
             logger.error("Distribution failed with Exception: " + ex.toString());
             throw new SteppingSystemException(ex);
@@ -24,54 +35,46 @@ public abstract class IDistributionStrategy {
         }
     }
 
-    private void distribute(Distribution[] distributionList, int iterationNum) {
-
-        Distribution[] busy = null; //*TODO CONSIDER USE LIST WITH INITIAL CAP SIZE
-
-        for (int inc = 0; inc < distributionList.length; inc++) {
-            if (distributionList[inc] == null)
-                continue;
-            boolean isDistributed = distributionList[inc].getiStepDecorator().offerQueueSubjectUpdate(distributionList[inc].getData(), distributionList[inc].getSubject());
-            if (!isDistributed) {
-                if (busy == null) {
-                    busy = new Distribution[distributionList.length];
-                }
-                busy[inc] = distributionList[inc];
-                logger.debug("Distribution not succeeded. Moving to Deceleration Mode for Subject: "  + busy[inc].getSubject() + ". Iteration number - " + iterationNum + "/" + MAXIMUM_OFFERS_RETRIES);
-            }
-        }
-
+    private void decelerate(Distribution[] distributionList) {
+        Distribution[] busy = distributionList.clone();
+        long start = System.nanoTime();
+        long backOffNanos = MIN_BACKOFF_NANOS;
+        int round = 0;
 
-        if (!isEmpty(busy)) {
-            //* ***** Deceleration Mode *****
-            if (iterationNum >= MAXIMUM_OFFERS_RETRIES) {
-                logger.debug("Deceleration Mode failed after " + iterationNum + "/" + MAXIMUM_OFFERS_RETRIES + " retries. Moving back to normal distribution");
-                for (Distribution dist : distributionList) {
+        //* ***** Deceleration Mode *****
+        while (offer(busy) > 0) {
+            if (System.nanoTime() - start >= DECELERATION_BUDGET_NANOS) {
+                logger.debug("Deceleration Mode failed after " + round + " retries. Moving to blocking distribution");
+                for (Distribution dist : busy) {
                     if (dist == null)
                         continue;
                     dist.getiStepDecorator().queueSubjectUpdate(dist.getData(), dist.getSubject());
                 }
+                return;
             }
-            try {
-                logger.debug("Retarding the distribution for " + WAIT_PERIOD_MILLI * iterationNum + " milliseconds");
-                Thread.sleep(WAIT_PERIOD_MILLI * iterationNum);
-            } catch (InterruptedException e) {
-                throw new SteppingSystemException("Distribution timeout failed");
+            if (round++ < SPIN_ROUNDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, backOffNanos);
+                backOffNanos = Math.min(backOffNanos << 1, MAX_BACKOFF_NANOS);
             }
-            distribute(busy, ++iterationNum);
+            if (Thread.currentThread().isInterrupted())
+                throw new SteppingSystemException("Distribution interrupted");
         }
     }
 
-    private boolean isEmpty(Distribution[] distributions) {
-        if (distributions == null)
-            return true;
-        else {
-            for (int inc = 0; inc < distributions.length; inc++) {
-                if (distributions[inc] != null) {
-                    return false;
-                }
-            }
+    //* Returns the number of Distributions still busy, delivered ones are removed from the array
+    private int offer(Distribution[] busy) {
+        int pending = 0;
+        for (int inc = 0; inc < busy.length; inc++) {
+            Distribution dist = busy[inc];
+            if (dist == null)
+                continue;
+            if (dist.getiStepDecorator().offerQueueSubjectUpdate(dist.getData(), dist.getSubject()))
+                busy[inc] = null;
+            else
+                pending++;
         }
-        return true;
+        return pending;
     }
 }
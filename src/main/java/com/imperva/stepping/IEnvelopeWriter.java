@@ -0,0 +1,12 @@
+package com.imperva.stepping;
+
+/**
+ * Lets a queue either write the arguments into one of its pre-allocated envelopes or create a new one.
+ * Implementations must be immutable so a single instance can be shared (no capturing lambdas on the hot path).
+ */
+interface IEnvelopeWriter<T, A, B> {
+
+    T create(A a, B b);
+
+    void write(T envelope, A a, B b);
+}
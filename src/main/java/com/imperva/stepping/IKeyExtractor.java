@@ -0,0 +1,10 @@
+package com.imperva.stepping;
+
+/**
+ * Extracts the key of a Data, see Follower.followConflated() and KeyPartitionedDistributionStrategy.
+ * Returned keys must implement equals() and hashCode(), null keys are not allowed.
+ */
+public interface IKeyExtractor {
+
+    Object extract(Data data);
+}
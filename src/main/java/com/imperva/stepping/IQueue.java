@@ -0,0 +1,48 @@
+package com.imperva.stepping;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+interface IQueue<T> {
+
+    boolean offer(T item);
+
+    <A, B> boolean offer(IEnvelopeWriter<T, A, B> writer, A a, B b);
+
+    void put(T item) throws InterruptedException;
+
+    <A, B> void put(IEnvelopeWriter<T, A, B> writer, A a, B b) throws InterruptedException;
+
+    T poll();
+
+    //* Returns null when woken up by signal()
+    T take() throws InterruptedException;
+
+    //* Returns null on timeout or when woken up by signal()
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    //* Wakes up the consumer blocked in take(). Safe to call from any thread
+    void signal();
+
+    //* Hands the envelopes polled so far back to the producers. No-op for queues without pre-allocated envelopes
+    void release();
+
+    int drainTo(Collection<? super T> collection, int maxItems);
+
+    T peek();
+
+    int size();
+
+    //* Lock free and possibly slightly stale, meant for load balancing decisions
+    default int approximateSize() {
+        return size();
+    }
+
+    void clear();
+
+    int capacity();
+
+    //* Frees resources held outside the heap (e.g. spill-over segment files), the queue must not be used afterwards
+    default void close() {
+    }
+}
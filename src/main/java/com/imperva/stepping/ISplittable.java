@@ -0,0 +1,13 @@
+package com.imperva.stepping;
+
+/**
+ * A payload EvenDistributionStrategy can split between the duplicated nodes without copying it.
+ * slice() should return a view over the [from, to) range of the payload, it is called by the publisher's thread and the
+ * slices are then used concurrently by the nodes.
+ */
+public interface ISplittable {
+
+    int size();
+
+    Object slice(int from, int to);
+}
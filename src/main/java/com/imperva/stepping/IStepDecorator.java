@@ -3,6 +3,7 @@ package com.imperva.stepping;
 
 
 import java.io.Closeable;
+import java.util.List;
 
 interface IStepDecorator extends Step, Closeable {
 
@@ -12,10 +13,18 @@ interface IStepDecorator extends Step, Closeable {
         throw new SteppingException("onTickCallBack not implemented");
     }
 
+    //* Queues a tick callback unless one is already pending, any thread, never blocks
+    void tick();
+
+    TickMetrics getTickMetrics();
+
     void queueSubjectUpdate(Data data, String subjectType);
 
     boolean offerQueueSubjectUpdate(Data data, String subjectType);
 
+    //* Tick callbacks and poison pills. Bypasses the data backlog and never blocks
+    void queueControl(Data data, String subjectType);
+
     void clearQueueSubject();
 
     Step getStep();
@@ -26,13 +35,68 @@ interface IStepDecorator extends Step, Closeable {
 
     void openDataSink();
 
+    //* ExecutionMode.DISPATCHER. Must be set before the Step is attached to its Subjects
+    void setDispatcher(Dispatcher dispatcher);
+
+    //* ExecutionMode.DISPATCHER. Processes up to maxMessages already queued messages without blocking
+    void dispatch(int maxMessages);
+
+    //* ExecutionMode.DISPATCHER. Lock free, the Step is alive and has queued messages
+    boolean isDispatchable();
+
+    //* Fusion. The Step is invoked on the thread shouting its single fused subject and has no DataSink thread.
+    //* Must be called before the Step is attached to its Subjects, failures are reported to the exceptionHandler
+    void fuse(IExceptionHandler exceptionHandler);
+
+    boolean isFused();
+
     void attachSubjects();
 
     Follower listSubjectsToFollow();
 
     int getQSize();
 
+    //* Lock free, meant for load aware distribution strategies
+    int getApproximateQSize();
+
     int getQCapacity();
 
+    //* Lock free, data or control items are queued
+    boolean hasPending();
+
+    //* Shutdown drain. Lock free, incremented when the Step starts processing a message and again once it is done, so it
+    //* is odd while a message is processed and changes whenever the Step made progress
+    long getActivity();
+
+    //* The Step took a poison pill, or a fused Step stopped after a failure that was not handled
+    boolean isDead();
+
+    //* Consumer group. Must be set before init(), all the nodes of the same distribution node ID share the group
+    void setConsumerGroup(ConsumerGroupQ<Message> consumerGroup);
+
+    //* Null unless the Step consumes from a consumer group queue
+    ConsumerGroupQ<Message> getConsumerGroup();
+
+    //* Work stealing. Siblings are the other nodes of the same distribution node ID
+    void setSiblings(List<IStepDecorator> siblings);
+
+    //* Work stealing. Any thread, removes an order-insensitive message from the tail of the queue or returns null
+    Message stealQueueSubject();
+
+    //* Work stealing. Any thread, wakes the node up if it is blocked on its own empty queue so it can steal from a sibling
+    void wakeThief();
+
+    //* Autoscaling. The Step must be detached from its Subjects first, its DataSink exits once the backlog is processed
+    void retire();
+
+    boolean isRetired();
+
+    //* Autoscaling. True once the DataSink of a retired Step has exited
+    boolean isStopped();
+
+    //* Autoscaling. Re-distributes the Data left in a stopped Step's queue (late distributions) among the remaining
+    //* nodes, and from then on everything queued to it
+    void handOverQueueSubject(List<IStepDecorator> successors);
+
     IDistributionStrategy getDistributionStrategy(String subjectType);
 }
@@ -4,6 +4,9 @@ public interface ISubject {
    String getType();
    Data getData();
    void attach(IStepDecorator o);
+   default void detach(IStepDecorator o) {
+      throw new SteppingException("detach not implemented");
+   }
    void publish(Data data);
    void publish(Object message);
 }
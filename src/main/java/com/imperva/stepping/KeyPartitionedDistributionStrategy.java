@@ -0,0 +1,130 @@
+package com.imperva.stepping;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes each Data to a single node, chosen by consistent hashing of the key extracted from the Data, so all the
+ * events of the same entity always reach the same duplicated node and stateful Steps can be scaled out without locks.
+ *
+ * Every node is placed on the hash ring at virtualNodes points derived from its Step id, adding a node moves only
+ * the keys that fall on its new points (roughly 1/numOfNodes of them), all the other keys keep their node.
+ * The ring is immutable and rebuilt only when the list of nodes changes. A single strategy instance is usually shared by
+ * all the Subjects its Step follows, each Subject's list of nodes gets its own cached ring.
+ */
+public class KeyPartitionedDistributionStrategy extends IDistributionStrategy {
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+    private static final int MAX_CACHED_RINGS = 16;
+
+    private final IKeyExtractor keyExtractor;
+    private final int virtualNodes;
+    volatile Ring[] rings = new Ring[0];//* Copy-on-write, most recently built first
+
+    public KeyPartitionedDistributionStrategy(IKeyExtractor keyExtractor) {
+        this(keyExtractor, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public KeyPartitionedDistributionStrategy(IKeyExtractor keyExtractor, int virtualNodes) {
+        if (keyExtractor == null)
+            throw new SteppingException("KeyPartitionedDistributionStrategy key extractor is required");
+        if (virtualNodes <= 0)
+            throw new SteppingException("KeyPartitionedDistributionStrategy virtual nodes must be a positive number");
+        this.keyExtractor = keyExtractor;
+        this.virtualNodes = virtualNodes;
+    }
+
+    @Override
+    public void distribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
+        if (iStepDecorators.isEmpty())
+            return;
+        Object key = keyExtractor.extract(data);
+        if (key == null)
+            throw new SteppingException("KeyPartitionedDistributionStrategy key can't be null");
+
+        IStepDecorator node = ring(iStepDecorators).node(mix(key.hashCode()));
+        if (!node.offerQueueSubjectUpdate(data, subjectType))
+            distribute(new Distribution[]{new Distribution(node, data, subjectType)});
+    }
+
+    /**
+     * Subject replaces its list of nodes (copy-on-write) whenever a node is attached or detached, so rings are cached
+     * per list identity. The size is checked as well for callers that mutate their list in place. Rings of lists that
+     * are no longer published fall off the cache as new ones are built.
+     */
+    private Ring ring(List<IStepDecorator> iStepDecorators) {
+        Ring[] current = rings;
+        for (Ring ring : current) {
+            if (ring.source == iStepDecorators && ring.size == iStepDecorators.size())
+                return ring;
+        }
+        Ring ring = new Ring(iStepDecorators, virtualNodes);
+        int kept = 0;
+        Ring[] next = new Ring[Math.min(current.length + 1, MAX_CACHED_RINGS)];
+        next[kept++] = ring;
+        for (Ring cached : current) {
+            if (kept == next.length)
+                break;
+            if (cached.source != iStepDecorators)
+                next[kept++] = cached;
+        }
+        rings = kept == next.length ? next : Arrays.copyOf(next, kept);
+        return ring;
+    }
+
+    static final class Ring {
+        private final List<IStepDecorator> source;
+        private final int size;
+        private final long[] points;
+        private final IStepDecorator[] owners;
+
+        Ring(List<IStepDecorator> iStepDecorators, int virtualNodes) {
+            this.source = iStepDecorators;
+            this.size = iStepDecorators.size();
+            int total = size * virtualNodes;
+            long[][] entries = new long[total][];
+            for (int node = 0; node < size; node++) {
+                String nodeId = iStepDecorators.get(node).getStep().getId();
+                for (int point = 0; point < virtualNodes; point++) {
+                    entries[node * virtualNodes + point] = new long[]{hash(nodeId + "#" + point), node};
+                }
+            }
+            //* Ties are broken by the node id hash so the ring does not depend on the order nodes were attached in
+            Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) :
+                    Long.compare(hash(iStepDecorators.get((int) a[1]).getStep().getId()), hash(iStepDecorators.get((int) b[1]).getStep().getId())));
+
+            this.points = new long[total];
+            this.owners = new IStepDecorator[total];
+            for (int inc = 0; inc < total; inc++) {
+                points[inc] = entries[inc][0];
+                owners[inc] = iStepDecorators.get((int) entries[inc][1]);
+            }
+        }
+
+        //* First point clockwise from the key's hash, wrapping around the ring
+        IStepDecorator node(long hash) {
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0)
+                index = -index - 1;
+            return owners[index == points.length ? 0 : index];
+        }
+    }
+
+    //* FNV-1a over the id, spread with the murmur3 finalizer
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int inc = 0; inc < value.length(); inc++) {
+            hash ^= value.charAt(inc);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+package com.imperva.stepping;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends each Data to a single node, the least loaded of a few randomly sampled duplicated nodes ("power of two
+ * choices"). Sampling two nodes is enough to keep the queues balanced when processing times vary per message, without
+ * the cost of scanning all the nodes on every publish.
+ *
+ * Queue sizes are read with getApproximateQSize() which never takes a lock, so the choice may be based on slightly
+ * stale sizes. Designed for Duplicated *stateless* nodes, the same entity may reach different nodes.
+ */
+public class LeastLoadedDistributionStrategy extends IDistributionStrategy {
+    private static final int DEFAULT_CHOICES = 2;
+
+    private final int choices;
+
+    public LeastLoadedDistributionStrategy() {
+        this(DEFAULT_CHOICES);
+    }
+
+    public LeastLoadedDistributionStrategy(int choices) {
+        if (choices <= 0)
+            throw new SteppingException("LeastLoadedDistributionStrategy choices must be a positive number");
+        this.choices = choices;
+    }
+
+    @Override
+    public void distribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
+        int size = iStepDecorators.size();
+        if (size == 0)
+            return;
+
+        IStepDecorator node = leastLoaded(iStepDecorators, size);
+        if (!node.offerQueueSubjectUpdate(data, subjectType))
+            distribute(new Distribution[]{new Distribution(node, data, subjectType)});
+    }
+
+    private IStepDecorator leastLoaded(List<IStepDecorator> iStepDecorators, int size) {
+        if (choices >= size)
+            return leastLoadedOfAll(iStepDecorators, size);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        IStepDecorator best = iStepDecorators.get(first);
+        int bestSize = best.getApproximateQSize();
+        for (int choice = 1; choice < choices && bestSize > 0; choice++) {
+            //* Samples may repeat when choices > 2, which only makes the choice slightly less informed
+            int index = first + 1 + random.nextInt(size - 1);
+            IStepDecorator candidate = iStepDecorators.get(index >= size ? index - size : index);
+            int candidateSize = candidate.getApproximateQSize();
+            if (candidateSize < bestSize) {
+                best = candidate;
+                bestSize = candidateSize;
+            }
+        }
+        return best;
+    }
+
+    private IStepDecorator leastLoadedOfAll(List<IStepDecorator> iStepDecorators, int size) {
+        //* Random starting point so idle nodes share the load instead of the first one getting it all
+        int start = ThreadLocalRandom.current().nextInt(size);
+        IStepDecorator best = null;
+        int bestSize = Integer.MAX_VALUE;
+        for (int inc = 0; inc < size && bestSize > 0; inc++) {
+            int index = start + inc;
+            IStepDecorator candidate = iStepDecorators.get(index >= size ? index - size : index);
+            int candidateSize = candidate.getApproximateQSize();
+            if (candidateSize < bestSize) {
+                best = candidate;
+                bestSize = candidateSize;
+            }
+        }
+        return best;
+    }
+}
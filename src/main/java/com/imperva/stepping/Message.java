@@ -1,19 +1,54 @@
 package com.imperva.stepping;
 
- class Message {
-     private final Data data;
-     private final String subjectType;
+/**
+ * When the Step recycles its Message envelopes (StepConfig.setRecycleMessageEnvelopes()) a Message instance is valid
+ * only during the onSubjectUpdate/onSubjectUpdateBatch call that received it.
+ */
+ public class Message {
+     static final IEnvelopeWriter<Message, Data, String> WRITER = writer(SubjectRoute.UNRESOLVED);
+
+     private Data data;
+     private String subjectType;
+     int subjectId = SubjectRoute.UNRESOLVED;//* Dense id of the receiving Step's SubjectRoute, see StepDecorator
+     long journalSequence = -1;//* Set when the Step journals its queue, see StepJournal
+
+     Message() {
+     }
 
      Message(Data data, String subjectType) {
          this.data = data;
          this.subjectType = subjectType;
      }
 
-     Data getData() {
+     Message(Data data, String subjectType, int subjectId) {
+         this.data = data;
+         this.subjectType = subjectType;
+         this.subjectId = subjectId;
+     }
+
+     //* One writer per subject id, created once when the Step's routes are compiled
+     static IEnvelopeWriter<Message, Data, String> writer(int subjectId) {
+         return new IEnvelopeWriter<Message, Data, String>() {
+             @Override
+             public Message create(Data data, String subjectType) {
+                 return new Message(data, subjectType, subjectId);
+             }
+
+             @Override
+             public void write(Message envelope, Data data, String subjectType) {
+                 envelope.data = data;
+                 envelope.subjectType = subjectType;
+                 envelope.subjectId = subjectId;
+                 envelope.journalSequence = -1;
+             }
+         };
+     }
+
+     public Data getData() {
          return this.data;
      }
 
-     String getSubjectType() {
+     public String getSubjectType() {
          return this.subjectType;
      }
 
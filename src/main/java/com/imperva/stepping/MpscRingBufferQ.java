@@ -0,0 +1,78 @@
+package com.imperva.stepping;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Multi Producer Single Consumer bounded ring buffer. Producers claim slots with a CAS on the producer index, each
+ * slot carries a sequence number telling whether it is free to write or ready to be consumed (Vyukov style).
+ */
+class MpscRingBufferQ<T> extends RingBufferQ<T> {
+    final AtomicLongArray sequences;
+
+    MpscRingBufferQ(int capacity) {
+        this(capacity, null);
+    }
+
+    MpscRingBufferQ(int capacity, Supplier<T> envelopeFactory) {
+        super(validCapacity(capacity), envelopeFactory);
+        sequences = new AtomicLongArray(this.capacity);
+        for (int inc = 0; inc < this.capacity; inc++) {
+            sequences.set(inc, inc);
+        }
+    }
+
+    //* With a single slot a published sequence (n + 1) can't be told apart from the next free one
+    private static int validCapacity(int capacity) {
+        if (capacity == 1)
+            throw new SteppingException("MPSC ring buffer capacity must be at least 2");
+        return capacity;
+    }
+
+    @Override
+    long claim() {
+        for (; ; ) {
+            long produced = producerIndex.get();
+            long diff = sequences.get(index(produced)) - produced;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(produced, produced + 1))
+                    return produced;
+            } else if (diff < 0) {
+                return -1;//* Slot was not released by the consumer yet - full
+            }
+        }
+    }
+
+    @Override
+    void publish(long sequence) {
+        sequences.set(index(sequence), sequence + 1);
+        signalConsumer();
+    }
+
+    @Override
+    T pollItem() {
+        long consumed = readIndex;
+        int index = index(consumed);
+        if (sequences.get(index) != consumed + 1)
+            return null;
+        readIndex = consumed + 1;
+        return buffer.get(index);
+    }
+
+    @Override
+    T peekItem(long sequence) {
+        int index = index(sequence);
+        return sequences.get(index) == sequence + 1 ? buffer.get(index) : null;
+    }
+
+    @Override
+    void releaseSlots(long from, long to) {
+        for (long sequence = from; sequence < to; sequence++) {
+            int index = index(sequence);
+            if (!envelopes)
+                buffer.lazySet(index, null);
+            sequences.lazySet(index, sequence + capacity);
+        }
+        consumerIndex.lazySet(to);
+    }
+}
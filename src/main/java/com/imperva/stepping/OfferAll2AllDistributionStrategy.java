@@ -16,5 +16,9 @@ public class OfferAll2AllDistributionStrategy extends IDistributionStrategy {
                 logger.error("Failed to distribute Subject:" + subjectType);
         });
     }
-}
 
+    //* Every node got its own copy, distributing it again would duplicate it
+    @Override
+    void redistribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
+    }
+}
@@ -1,70 +1,260 @@
 package com.imperva.stepping;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * Created by gabi.beyo on 1/31/2018.
+ * Control items (tick callbacks, poison pills) go to an unbounded lane that take() always checks first, so they
+ * are neither delayed by a data backlog nor blocked by a full queue.
  */
 class Q<T> {
 
-    private BlockingQueue<T> blockingQueue;
-    private int capacity;
+    private final IQueue<T> queue;
+    private final ConcurrentLinkedQueue<T> controlLane = new ConcurrentLinkedQueue<>();
+    private final WaitStrategy waitStrategy;
 
     Q() {
         this(0);
     }
 
     Q(int capacity) {
-        this.capacity = capacity;
-        if (capacity > 0)
-            blockingQueue = new LinkedBlockingDeque<>(capacity);
-        else if (capacity < 0)
+        this(capacity, QueueType.BLOCKING);
+    }
+
+    Q(int capacity, QueueType queueType) {
+        this(capacity, queueType, WaitStrategy.BLOCKING);
+    }
+
+    Q(int capacity, QueueType queueType, WaitStrategy waitStrategy) {
+        this(capacity, queueType, waitStrategy, null);
+    }
+
+    //* envelopeFactory pre-allocates the ring buffer slots, supported by the ring buffer queue types only
+    Q(int capacity, QueueType queueType, WaitStrategy waitStrategy, Supplier<T> envelopeFactory) {
+        this(createQueue(capacity, queueType, envelopeFactory), waitStrategy);
+    }
+
+    Q(IQueue<T> queue, WaitStrategy waitStrategy) {
+        if (waitStrategy == null)
+            throw new SteppingException("Q wait strategy is required");
+        this.queue = queue;
+        this.waitStrategy = waitStrategy;
+    }
+
+    static <T> IQueue<T> createQueue(int capacity, QueueType queueType, Supplier<T> envelopeFactory) {
+        if (capacity < 0)
             throw new SteppingException("Q capacity must be a positive number");
-        else
-            blockingQueue = new LinkedBlockingDeque<>();
+        if (queueType == null)
+            throw new SteppingException("Q type is required");
+
+        switch (queueType) {
+            case SPSC_RING_BUFFER:
+                return new SpscRingBufferQ<>(capacity, envelopeFactory);
+            case MPSC_RING_BUFFER:
+                return new MpscRingBufferQ<>(capacity, envelopeFactory);
+            default:
+                if (envelopeFactory != null)
+                    throw new SteppingException("Pre-allocated envelopes are supported only by the ring buffer queue types");
+                return new BlockingDequeQ<>(capacity);
+        }
     }
 
     T peek() {
-        return blockingQueue.peek();
+        return queue.peek();
     }
 
     void queue(T item) {
         try {
-            blockingQueue.put(item);
+            if (ForkJoinTask.inForkJoinPool())
+                managedPut(() -> queue.offer(item), () -> queue.put(item));
+            else
+                queue.put(item);
+        } catch (Exception e) {
+            throw new SteppingSystemException("Queue was not able to insert a new item", e);
+        }
+    }
+
+    <A, B> void queue(IEnvelopeWriter<T, A, B> writer, A a, B b) {
+        try {
+            if (ForkJoinTask.inForkJoinPool())
+                managedPut(() -> queue.offer(writer, a, b), () -> queue.put(writer, a, b));
+            else
+                queue.put(writer, a, b);
         } catch (Exception e) {
             throw new SteppingSystemException("Queue was not able to insert a new item", e);
         }
     }
 
+    //* A Dispatcher worker about to block on a full queue lets the pool start a compensating worker, see Dispatcher
+    private static void managedPut(BooleanSupplier offer, IPut put) throws InterruptedException {
+        if (offer.getAsBoolean())
+            return;
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            private boolean done;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                put.put();
+                done = true;
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return done;
+            }
+        });
+    }
+
+    /**
+     * Waits until the queue has room for one more item, without inserting it. For producers that must not block in
+     * queue() while holding a lock: they offer under the lock and wait here once it is released. Another producer may
+     * take the room first, the caller retries its offer.
+     */
+    void awaitCapacity() {
+        try {
+            if (ForkJoinTask.inForkJoinPool())
+                managedPut(this::hasCapacity, this::parkUntilCapacity);
+            else
+                parkUntilCapacity();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SteppingSystemException("Interrupted while waiting for the queue to have room", e);
+        }
+    }
+
+    private boolean hasCapacity() {
+        return queue.size() < queue.capacity();
+    }
+
+    private void parkUntilCapacity() throws InterruptedException {
+        int idleCount = 0;
+        while (!hasCapacity()) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            idleCount = WaitStrategy.TIMED_PARK.idle(idleCount);
+        }
+    }
+
+    private interface IPut {
+        void put() throws InterruptedException;
+    }
+
     boolean contains() {
-        return !blockingQueue.isEmpty();
+        return queue.size() > 0;
+    }
+
+    //* Never blocks, safe to call from any thread
+    void queueControl(T item) {
+        if (item == null)
+            throw new SteppingSystemException("Queue was not able to insert a new control item");
+        controlLane.add(item);
+        queue.signal();
     }
 
     T take() throws InterruptedException {
-        T data = blockingQueue.take();
-        return data;
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            for (; ; ) {
+                T control = controlLane.poll();
+                if (control != null)
+                    return control;
+                T data = queue.take();
+                if (data != null)
+                    return data;
+            }
+        }
+
+        int idleCount = 0;
+        for (; ; ) {
+            T data = controlLane.poll();
+            if (data == null)
+                data = queue.poll();
+            if (data != null)
+                return data;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            idleCount = waitStrategy.idle(idleCount);
+        }
+    }
+
+    //* Never blocks, the control lane first. Used by the Dispatcher
+    T poll() {
+        T control = controlLane.poll();
+        if (control != null)
+            return control;
+        return queue.poll();
+    }
+
+    //* Lock free, control or data items are waiting
+    boolean hasPending() {
+        return !controlLane.isEmpty() || queue.approximateSize() > 0;
+    }
+
+    //* Like take() but gives up after the timeout and returns null, the WaitStrategy is not used
+    T take(long timeout, TimeUnit unit) throws InterruptedException {
+        T control = controlLane.poll();
+        if (control != null)
+            return control;
+        return queue.poll(timeout, unit);
+    }
+
+    //* Any thread, wakes up a consumer waiting in take(timeout, unit), which returns null
+    void signal() {
+        queue.signal();
+    }
+
+    //* Must be called by the consumer once it is done with the taken items, see IQueue.release()
+    void release() {
+        queue.release();
     }
 
+    //* Non blocking, moves up to maxItems already queued items to the collection
+    int drainTo(Collection<? super T> collection, int maxItems) {
+        return queue.drainTo(collection, maxItems);
+    }
 
+    //* Data items only, the control lane is not counted
     int size() {
-        return blockingQueue.size();
+        return queue.size();
     }
 
+    //* Data items only. Lock free and possibly slightly stale, see IQueue.approximateSize()
+    int approximateSize() {
+        return queue.approximateSize();
+    }
+
+    //* Data items only, pending control items are kept
     void clear() {
-        blockingQueue.clear();
+        queue.clear();
+    }
+
+    void close() {
+        queue.close();
     }
 
     public int getCapacity() {
-        return capacity;
+        return queue.capacity();
     }
 
     public boolean offer(T message) {
         try {
-        return blockingQueue.offer(message);
+        return queue.offer(message);
         } catch (Exception e) {
             throw new SteppingSystemException("Queue was not able to Offer a new item", e);
         }
     }
-}
 
+    <A, B> boolean offer(IEnvelopeWriter<T, A, B> writer, A a, B b) {
+        try {
+            return queue.offer(writer, a, b);
+        } catch (Exception e) {
+            throw new SteppingSystemException("Queue was not able to Offer a new item", e);
+        }
+    }
+}
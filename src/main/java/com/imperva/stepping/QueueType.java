@@ -0,0 +1,10 @@
+package com.imperva.stepping;
+
+public enum QueueType {
+    /* Default. LinkedBlockingDeque based, supports any number of producers */
+    BLOCKING,
+    /* Lock-free array backed ring buffer. Only a single thread may publish to the Step */
+    SPSC_RING_BUFFER,
+    /* Lock-free array backed ring buffer. Any number of threads may publish to the Step */
+    MPSC_RING_BUFFER
+}
@@ -0,0 +1,306 @@
+package com.imperva.stepping;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Base class of the array backed, lock-free queues. Implementors supply the producer side (claim/publish) and the
+ * consumer side (pollItem/releaseSlots), this class adds the blocking semantics on top of them.
+ * Only the Step's own thread is allowed to consume.
+ *
+ * When created with an envelope factory the slots are pre-allocated once and reused: producers write into the slot
+ * in place and the consumer hands slots back to the producers only when calling release().
+ *
+ * Producers blocked on a full ring buffer park until the consumer frees a slot and wakes them up, the park is
+ * bounded so a missed wake-up costs at most MAX_PRODUCER_PARK_NANOS.
+ */
+abstract class RingBufferQ<T> implements IQueue<T> {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long MAX_PRODUCER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    final AtomicReferenceArray<T> buffer;
+    final int capacity;
+    final int mask;
+    final boolean envelopes;
+    final AtomicLong producerIndex = new PaddedAtomicLong();
+    final AtomicLong consumerIndex = new PaddedAtomicLong();
+    long readIndex;//* Accessed by the consumer thread only. Slots in [consumerIndex, readIndex) are polled but not released yet
+    private volatile Thread consumerWaiter;
+    private final AtomicInteger parkedProducers = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Thread> producerWaiters = new ConcurrentLinkedQueue<>();
+    private volatile boolean signalled;
+    private volatile long discardUpTo;
+
+    RingBufferQ(int capacity) {
+        this(capacity, null);
+    }
+
+    RingBufferQ(int capacity, Supplier<T> envelopeFactory) {
+        if (capacity <= 0)
+            throw new SteppingException("Ring buffer capacity must be a positive number");
+        this.capacity = roundToPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.envelopes = envelopeFactory != null;
+        if (envelopes) {
+            for (int inc = 0; inc < this.capacity; inc++) {
+                buffer.set(inc, envelopeFactory.get());
+            }
+        }
+    }
+
+    /* Producer side. Returns the claimed sequence or -1 when full */
+    abstract long claim();
+
+    /* Producer side. Makes the claimed sequence visible to the consumer */
+    abstract void publish(long sequence);
+
+    /* Consumer side only. Returns null when the ring buffer is empty, otherwise advances readIndex */
+    abstract T pollItem();
+
+    /* Consumer side only. Returns the item at the sequence once it is published, null otherwise. Doesn't advance readIndex */
+    abstract T peekItem(long sequence);
+
+    /* Consumer side only. Hands the slots in [from, to) back to the producers */
+    abstract void releaseSlots(long from, long to);
+
+    final int index(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    /* Called by the consumer after handing slots back to the producers */
+    final void signalProducers() {
+        if (parkedProducers.get() == 0)
+            return;
+        for (Thread waiter : producerWaiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /* Must be called by producers right after a volatile publication of a new item */
+    final void signalConsumer() {
+        Thread waiter = consumerWaiter;
+        if (waiter != null)
+            LockSupport.unpark(waiter);
+    }
+
+    @Override
+    public boolean offer(T item) {
+        if (item == null)
+            throw new NullPointerException();
+        if (envelopes)
+            throw new SteppingSystemException("Ring buffer with pre-allocated envelopes accepts only in place writes");
+        long sequence = claim();
+        if (sequence < 0)
+            return false;
+        buffer.lazySet(index(sequence), item);
+        publish(sequence);
+        return true;
+    }
+
+    @Override
+    public <A, B> boolean offer(IEnvelopeWriter<T, A, B> writer, A a, B b) {
+        if (!envelopes)
+            return offer(writer.create(a, b));
+        long sequence = claim();
+        if (sequence < 0)
+            return false;
+        writer.write(buffer.get(index(sequence)), a, b);
+        publish(sequence);
+        return true;
+    }
+
+    @Override
+    public void put(T item) throws InterruptedException {
+        if (item == null)
+            throw new NullPointerException();
+        int idle = 0;
+        while (!offer(item)) {
+            idle = backOffProducer(idle);
+        }
+    }
+
+    @Override
+    public <A, B> void put(IEnvelopeWriter<T, A, B> writer, A a, B b) throws InterruptedException {
+        int idle = 0;
+        while (!offer(writer, a, b)) {
+            idle = backOffProducer(idle);
+        }
+    }
+
+    private int backOffProducer(int idle) throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (idle < SPIN_TRIES) {
+            return idle + 1;
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+            return idle + 1;
+        }
+        Thread current = Thread.currentThread();
+        parkedProducers.incrementAndGet();
+        producerWaiters.add(current);
+        try {
+            //* Re-checked once registered, the consumer may have freed a slot before it could see us
+            if (size() >= capacity)
+                LockSupport.parkNanos(this, MAX_PRODUCER_PARK_NANOS);
+        } finally {
+            producerWaiters.remove(current);
+            parkedProducers.decrementAndGet();
+        }
+        return idle + 1;
+    }
+
+    @Override
+    public T poll() {
+        for (; ; ) {
+            long index = readIndex;
+            T item = pollItem();
+            if (item == null)
+                return null;
+            if (!envelopes) {
+                releaseSlots(index, index + 1);
+                signalProducers();
+            }
+            if (index >= discardUpTo)
+                return item;
+            //* Item was queued before clear() was called, drop it
+        }
+    }
+
+    @Override
+    public void release() {
+        long released = consumerIndex.get();
+        if (envelopes && released < readIndex) {
+            releaseSlots(released, readIndex);
+            signalProducers();
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        return await(false, 0);
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    private T await(boolean timed, long deadline) throws InterruptedException {
+        int idle = 0;
+        for (; ; ) {
+            //* Checked first, whatever was signalled (e.g. a control item) takes precedence over the queued items
+            if (signalled) {
+                signalled = false;
+                return null;
+            }
+            T item = poll();
+            if (item != null)
+                return item;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long parkNanos = MAX_CONSUMER_PARK_NANOS;
+            if (timed) {
+                parkNanos = Math.min(parkNanos, deadline - System.nanoTime());
+                if (parkNanos <= 0)
+                    return null;
+            }
+            if (idle < SPIN_TRIES) {
+                idle++;
+            } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                idle++;
+                Thread.yield();
+            } else {
+                consumerWaiter = Thread.currentThread();
+                try {
+                    item = poll();
+                    if (item != null)
+                        return item;
+                    if (!signalled)
+                        LockSupport.parkNanos(this, parkNanos);
+                } finally {
+                    consumerWaiter = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void signal() {
+        signalled = true;
+        signalConsumer();
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> collection, int maxItems) {
+        int drained = 0;
+        while (drained < maxItems) {
+            T item = poll();
+            if (item == null)
+                break;
+            collection.add(item);
+            drained++;
+        }
+        return drained;
+    }
+
+    //* Consumer side only, like poll() the items discarded by clear() are dropped first
+    @Override
+    public T peek() {
+        for (; ; ) {
+            long index = readIndex;
+            if (index >= discardUpTo)
+                return peekItem(index);
+            T item = pollItem();
+            if (item == null)
+                return null;
+            if (!envelopes) {
+                releaseSlots(index, index + 1);
+                signalProducers();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        long consumed = Math.max(consumerIndex.get(), discardUpTo);
+        long size = producerIndex.get() - consumed;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * Safe to call from any thread. Items are not removed right away, the consumer drops them as it reaches them
+     */
+    @Override
+    public void clear() {
+        discardUpTo = producerIndex.get();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        if (value > (1 << 30))
+            throw new SteppingException("Ring buffer capacity is too big: " + value);
+        int highestOneBit = Integer.highestOneBit(value);
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+
+    //* Keeps the producer and consumer indexes on different cache lines
+    @SuppressWarnings("unused")
+    static class PaddedAtomicLong extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+        private long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -3,46 +3,88 @@ package com.imperva.stepping;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 class RunnersController {
     private final Logger logger = LoggerFactory.getLogger(RunnersController.class);
     private final Object lock = new Object();
-    private ExecutorService executorService = Executors.newCachedThreadPool();
-    private List<ScheduledExecutorService> scheduledExecutorServices = new CopyOnWriteArrayList<>();
+    private final ExecutionMode executionMode;
+    private ExecutorService executorService;
+    private Dispatcher dispatcher;
+    private TickTimer tickTimer;
 
-    ExecutorService getExecutorService() {
-        return executorService;
+    RunnersController() {
+        this(ExecutionMode.PLATFORM_THREADS);
+    }
+
+    RunnersController(ExecutionMode executionMode) {
+        if (executionMode == null)
+            executionMode = ExecutionMode.PLATFORM_THREADS;
+        if (executionMode == ExecutionMode.VIRTUAL_THREADS && !VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads are not supported by this JVM, falling back to platform threads");
+            executionMode = ExecutionMode.PLATFORM_THREADS;
+        }
+        this.executionMode = executionMode;
+        if (executionMode == ExecutionMode.VIRTUAL_THREADS)
+            executorService = Executors.newCachedThreadPool(VirtualThreads.factory("stepping.runner"));
+        else
+            executorService = Executors.newCachedThreadPool();
+    }
+
+    void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    //* Null unless ExecutionMode.DISPATCHER
+    Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    void setTickTimer(TickTimer tickTimer) {
+        this.tickTimer = tickTimer;
+    }
+
+    //* Drives all the tick callbacks of the Algo, the ticks run on the runners' ExecutorService
+    TickTimer getTickTimer() {
+        return tickTimer;
+    }
+
+    ExecutionMode getExecutionMode() {
+        return executionMode;
     }
 
-    void addScheduledRunner(ScheduledExecutorService scheduledExecutorService) {
-        scheduledExecutorServices.add(scheduledExecutorService);
+    //* For the TickTimer's wheel thread
+    ThreadFactory newThreadFactory(String name) {
+        if (executionMode == ExecutionMode.VIRTUAL_THREADS)
+            return VirtualThreads.factory(name);
+        return RunningScheduled.platformThreadFactory(name);
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
     }
 
     void kill() {
         synchronized (lock) {
             try {
+                if (tickTimer != null) {
+                    logger.info("Closing TickTimer");
+                    tickTimer.close();
+                }
                 if (!executorService.isShutdown()) {
                     logger.info("Closing ExecutorService gracefully");
                     executorService.shutdown();
                     executorService.shutdownNow();
                 }
-                for (ExecutorService scheduledExecutorService : scheduledExecutorServices) {
-                    if (!scheduledExecutorService.isShutdown()) {
-                        logger.info("Closing ScheduledExecutorService gracefully");
-                        scheduledExecutorService.shutdown();
-                        scheduledExecutorService.shutdownNow();
-                    }
+                if (dispatcher != null) {
+                    logger.info("Closing Dispatcher");
+                    dispatcher.close();
                 }
                 logger.info("Tasks are dead");
             } catch (Exception e) {
-                logger.error("Failed closing ScheduledExecutorService");
-            } finally {
-                scheduledExecutorServices.clear();
+                logger.error("Failed closing ExecutorService");
             }
         }
     }
@@ -11,6 +11,8 @@ import java.util.concurrent.*;
      private long initialdelay;
      private ScheduledFuture scheduledFuture;
      private ScheduledExecutorService scheduledExecutorService;
+     private TickTimer tickTimer;//* Shared by the Algo, the Running has no thread of its own when set
+     private boolean nonBlocking;//* Runs on the TickTimer's own thread
      private TimeUnit timeUnit;
 
      protected RunningScheduled(String id, long delay, long initialdelay, TimeUnit timeUnit, Runnable runnable) {
@@ -19,14 +21,16 @@ import java.util.concurrent.*;
          this.initialdelay = initialdelay;
          this.runnable = runnable;
          this.timeUnit = timeUnit;
-         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
-             @Override
-             public Thread newThread(Runnable r) {
-                 Thread t = new Thread(r);
-                 t.setName(id);
-                 return t;
-             }
-         });
+         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(platformThreadFactory(id));
+     }
+
+     RunningScheduled(String id, long delay, long initialdelay, TimeUnit timeUnit, Runnable runnable, TickTimer tickTimer) {
+         this.id = id;
+         this.delay = delay;
+         this.initialdelay = initialdelay;
+         this.runnable = runnable;
+         this.timeUnit = timeUnit;
+         this.tickTimer = tickTimer;
      }
 
      protected RunningScheduled(String id, String cronExpression, Runnable runnable) {
@@ -48,21 +52,39 @@ import java.util.concurrent.*;
 
      protected RunningScheduled(String id,  Runnable runnable) {
          this.runnable = runnable;
-         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(platformThreadFactory(id));
+     }
+
+     RunningScheduled(String id, Runnable runnable, TickTimer tickTimer, boolean nonBlocking) {
+         this.id = id;
+         this.runnable = runnable;
+         this.tickTimer = tickTimer;
+         this.nonBlocking = nonBlocking;
+     }
+
+     static ThreadFactory platformThreadFactory(String id) {
+         return new ThreadFactory() {
              @Override
              public Thread newThread(Runnable r) {
                  Thread t = new Thread(r);
                  t.setName(id);
                  return t;
              }
-         });
+         };
      }
 
      protected Future<?> awake() {
-         this.scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(runnable, initialdelay, delay, timeUnit);
+         this.scheduledFuture = schedule(initialdelay, delay, timeUnit);
          return scheduledFuture;
      }
 
+     private ScheduledFuture<?> schedule(long initialdelay, long delay, TimeUnit timeUnit) {
+         if (tickTimer != null)
+             return tickTimer.scheduleWithFixedDelay(id, runnable, initialdelay, delay, timeUnit, nonBlocking);
+         return scheduledExecutorService.scheduleWithFixedDelay(runnable, initialdelay, delay, timeUnit);
+     }
+
+     //* Null when running on the Algo's TickTimer
      ScheduledExecutorService getScheduledExecutorService() {
          return scheduledExecutorService;
      }
@@ -75,7 +97,7 @@ import java.util.concurrent.*;
 
      public void changeDelay(long delay, long initialdelay, TimeUnit timeUnit) {
          scheduledFuture.cancel(false);
-         scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(runnable, initialdelay, delay, timeUnit);
+         scheduledFuture = schedule(initialdelay, delay, timeUnit);
      }
 
      public void setDelay(long delay, TimeUnit timeUnit) {
@@ -86,7 +108,7 @@ import java.util.concurrent.*;
 
      public void changeDelay(long delay, TimeUnit timeUnit) {
          scheduledFuture.cancel(false);
-         scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(runnable, delay, delay, timeUnit);
+         scheduledFuture = schedule(delay, delay, timeUnit);
      }
 
      public void setDelay(String cronExpression){
@@ -112,7 +134,7 @@ import java.util.concurrent.*;
      public void changeDelay(String cronExpression){
          long delay = calculateDelay(cronExpression);
          scheduledFuture.cancel(false);
-         scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(runnable, delay, delay, TimeUnit.MILLISECONDS);
+         scheduledFuture = schedule(delay, delay, TimeUnit.MILLISECONDS);
      }
 
      public long getDelay(TimeUnit timeUnit){
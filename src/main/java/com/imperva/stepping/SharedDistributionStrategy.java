@@ -8,6 +8,12 @@ public class SharedDistributionStrategy extends IDistributionStrategy {
     //* TODO - use super.distribute()?
     @Override
     public void distribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
+        if (isSingleConsumerGroup(iStepDecorators)) {
+            //* The nodes share one queue, a single enqueue and the first free node takes it
+            iStepDecorators.get(0).queueSubjectUpdate(data, subjectType);
+            return;
+        }
+
         data.setExpirationCondition((d, c) -> {
             SharedDistributionExpirationContext context = ((SharedDistributionExpirationContext) c);
             return context.getAtomicBarrier().compareAndSet(context.expectedValue, context.newValue);
@@ -17,6 +23,19 @@ public class SharedDistributionStrategy extends IDistributionStrategy {
         }
     }
 
+    private boolean isSingleConsumerGroup(List<IStepDecorator> iStepDecorators) {
+        if (iStepDecorators.isEmpty())
+            return false;
+        ConsumerGroupQ<Message> consumerGroup = iStepDecorators.get(0).getConsumerGroup();
+        if (consumerGroup == null)
+            return false;
+        for (int inc = 1; inc < iStepDecorators.size(); inc++) {
+            if (iStepDecorators.get(inc).getConsumerGroup() != consumerGroup)
+                return false;
+        }
+        return true;
+    }
+
     class SharedDistributionExpirationContext {
         private AtomicInteger atomicBarrier;
         private int expectedValue;
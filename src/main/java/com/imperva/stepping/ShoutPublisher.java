@@ -0,0 +1,155 @@
+package com.imperva.stepping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The publisher stage of Shouter.shoutAsync(). Each shouting Step gets its own lane, a single thread running its
+ * distributions in submission order so the callers never block on full Step queues, and a Step whose followers' queues
+ * are full only stalls its own async shouts. The number of shouts in flight of a lane is bounded by a Semaphore, a
+ * caller exceeding it waits for a permit, this is the backpressure of the async shouts.
+ * The thread of a lane is started on its first async shout and exits once idle for LANE_KEEP_ALIVE_SECONDS.
+ */
+class ShoutPublisher implements Closeable {
+    private static final long LANE_KEEP_ALIVE_SECONDS = 60;
+    private final Logger logger = LoggerFactory.getLogger(ShoutPublisher.class);
+    private final int maxInFlight;
+    private final String name;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    ShoutPublisher(String name, int maxInFlight) {
+        if (maxInFlight <= 0)
+            throw new SteppingException("Async shout max in-flight must be a positive number");
+        this.name = name;
+        this.maxInFlight = maxInFlight;
+    }
+
+    CompletableFuture<Void> submit(String senderId, Runnable publication) {
+        try {
+            return lane(senderId).submit(publication);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new SteppingSystemException("Async shout rejected, publisher is closed", e));
+            return future;
+        }
+    }
+
+    private Lane lane(String senderId) {
+        Lane current = lanes.get(senderId);
+        if (current != null)
+            return current;
+        synchronized (this) {
+            if (closed)
+                throw new RejectedExecutionException();
+            return lanes.computeIfAbsent(senderId, Lane::new);
+        }
+    }
+
+    //* No async shout is queued or being distributed
+    boolean isIdle() {
+        for (Lane lane : lanes.values()) {
+            if (!lane.isIdle())
+                return false;
+        }
+        return true;
+    }
+
+    //* Shouts not started yet are failed, the ones being distributed are let to complete (the threads are not interrupted)
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        int cancelled = 0;
+        for (Lane lane : lanes.values()) {
+            cancelled += lane.close();
+        }
+        if (cancelled > 0)
+            logger.info(cancelled + " async shouts were cancelled while closing");
+    }
+
+    private class Lane {
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final ThreadPoolExecutor executor;
+
+        Lane(String senderId) {
+            executor = new ThreadPoolExecutor(1, 1, LANE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), (runnable) -> {
+                Thread thread = new Thread(runnable, name + "." + senderId + ".publisher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        CompletableFuture<Void> submit(Runnable publication) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return future;
+            }
+            try {
+                executor.execute(new Publication(publication, future, inFlight));
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                future.completeExceptionally(new SteppingSystemException("Async shout rejected, publisher is closed", e));
+            }
+            return future;
+        }
+
+        boolean isIdle() {
+            return inFlight.availablePermits() == maxInFlight;
+        }
+
+        //* The number of cancelled shouts
+        int close() {
+            List<Runnable> pending = new ArrayList<>();
+            executor.getQueue().drainTo(pending);
+            executor.shutdown();
+            for (Runnable runnable : pending) {
+                ((Publication) runnable).future.completeExceptionally(new SteppingSystemException("Async shout cancelled, publisher is closed"));
+                inFlight.release();
+            }
+            return pending.size();
+        }
+    }
+
+    private static class Publication implements Runnable {
+        private final Runnable publication;
+        private final CompletableFuture<Void> future;
+        private final Semaphore inFlight;
+
+        Publication(Runnable publication, CompletableFuture<Void> future, Semaphore inFlight) {
+            this.publication = publication;
+            this.future = future;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void run() {
+            try {
+                publication.run();
+                future.complete(null);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+}
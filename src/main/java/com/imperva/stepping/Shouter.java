@@ -3,11 +3,14 @@ package com.imperva.stepping;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
  public class Shouter {
      private final Logger logger = LoggerFactory.getLogger(IRunning.class);
      private Container container;
      private IExceptionHandler rootExceptionHandler;
      private String senderId;
+     private volatile ShoutPublisher shoutPublisher;
 
      public Shouter(String senderId, Container container, IExceptionHandler rootExceptionHandler) {
          this.container = container;
@@ -34,6 +37,52 @@ import org.slf4j.LoggerFactory;
          }
      }
 
+     //* Hands the distribution to the publisher thread of this Step, see ShoutPublisher. The returned future completes once
+     //* the Data is queued to all the followers or exceptionally when the distribution fails.
+     //* Async shouts of a single Step are distributed in submission order, but not in order relatively to sync shouts.
+     public CompletableFuture<Void> shoutAsync(String subjectType, Object value) {
+         Data data = new Data(value);
+         data.setSenderId(senderId);
+         return shoutAsync(subjectType, data);
+     }
+
+     public CompletableFuture<Void> shoutAsync(String subjectType, Data value) {
+         Subject subjectToNotify = handleMissingSubject(subjectType);
+         if (subjectToNotify == null) {
+             CompletableFuture<Void> missing = new CompletableFuture<>();
+             missing.completeExceptionally(new SteppingDistributionException(subjectType, "Subject is missing", null));
+             return missing;
+         }
+
+         value.setSenderId(senderId);
+         ShoutPublisher publisher = getShoutPublisher();
+         if (publisher == null) {
+             //* Not running inside an Algo, falls back to a sync shout
+             shout(subjectType, value);
+             return CompletableFuture.completedFuture(null);
+         }
+
+         return publisher.submit(senderId, () -> {
+             try {
+                 subjectToNotify.publish(value);
+             } catch (Exception e) {
+                 logger.error("Async Shouter Failed", e);
+                 SteppingDistributionException distributionException = new SteppingDistributionException(subjectType, "Distribution FAILED", e);
+                 rootExceptionHandler.handle(distributionException);
+                 throw distributionException;
+             }
+         });
+     }
+
+     private ShoutPublisher getShoutPublisher() {
+         ShoutPublisher publisher = shoutPublisher;
+         if (publisher == null) {
+             publisher = container.getById(BuiltinTypes.STEPPING_SHOUT_PUBLISHER.name());
+             shoutPublisher = publisher;
+         }
+         return publisher;
+     }
+
      private Subject handleMissingSubject(String subjectType) {
          Subject subjectToNotify = container.getById(subjectType);
          if (subjectToNotify == null) {
@@ -0,0 +1,324 @@
+package com.imperva.stepping;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wraps a bounded in-memory queue and, instead of blocking the publishers once it is full, spills the overflow to
+ * memory-mapped segment files. While anything is spilled all new messages go to disk as well so FIFO order is kept,
+ * the consumer drains the in-memory queue first and then reads the segments back in order.
+ *
+ * The fast path (not spilling) is the wrapped queue as is, the disk path is guarded by a single lock.
+ * Control messages and expirable Data can't be serialized, they keep their place in the segment as a reference to
+ * the heap object.
+ */
+class SpillOverQ implements IQueue<Message> {
+    private static final byte ENCODED = 0;
+    private static final byte HEAP_REFERENCE = 1;
+
+    private final IQueue<Message> memory;
+    private final IDataCodec codec;
+    private final File directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final Map<Long, Message> heapReferences = new HashMap<>();
+    private long heapReferenceSequence;
+    private volatile boolean spilling;
+    private volatile int spilled;
+
+    SpillOverQ(IQueue<Message> memory, IDataCodec codec, File directory, int segmentSize) {
+        if (codec == null)
+            throw new SteppingException("Spill-over Data codec is required");
+        if (segmentSize <= 0)
+            throw new SteppingException("Spill-over segment size must be a positive number");
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new SteppingException("Spill-over directory " + directory.getAbsolutePath() + " can't be created");
+        this.memory = memory;
+        this.codec = codec;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public boolean offer(Message item) {
+        if (item == null)
+            throw new NullPointerException();
+        if (!spilling && memory.offer(item))
+            return true;
+
+        lock.lock();
+        try {
+            if (!spilling) {
+                if (memory.offer(item))
+                    return true;
+                spilling = true;
+            }
+            write(item);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <A, B> boolean offer(IEnvelopeWriter<Message, A, B> writer, A a, B b) {
+        return offer(writer.create(a, b));
+    }
+
+    @Override
+    public void put(Message item) {
+        offer(item);
+    }
+
+    @Override
+    public <A, B> void put(IEnvelopeWriter<Message, A, B> writer, A a, B b) {
+        offer(writer.create(a, b));
+    }
+
+    @Override
+    public Message poll() {
+        Message message = memory.poll();
+        if (message != null || spilled == 0)
+            return message;
+
+        lock.lock();
+        try {
+            message = memory.poll();
+            if (message == null && spilled > 0)
+                message = read(true);
+            if (spilled == 0)
+                spilling = false;
+            return message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Message take() throws InterruptedException {
+        Message message = poll();
+        if (message != null)
+            return message;
+        //* Nothing is spilled and nothing is in memory. The first item spilled from now on signals the memory queue,
+        //* the next poll() sees it
+        return memory.take();
+    }
+
+    @Override
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Message message = poll();
+        if (message != null)
+            return message;
+        return memory.poll(timeout, unit);
+    }
+
+    @Override
+    public void signal() {
+        memory.signal();
+    }
+
+    @Override
+    public void release() {
+        memory.release();
+    }
+
+    @Override
+    public int drainTo(Collection<? super Message> collection, int maxItems) {
+        int drained = 0;
+        Message message;
+        while (drained < maxItems && (message = poll()) != null) {
+            collection.add(message);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public Message peek() {
+        Message message = memory.peek();
+        if (message != null || spilled == 0)
+            return message;
+
+        lock.lock();
+        try {
+            message = memory.peek();
+            if (message == null && spilled > 0)
+                message = read(false);
+            return message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return memory.size() + spilled;
+    }
+
+    @Override
+    public int approximateSize() {
+        return memory.approximateSize() + spilled;
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            memory.clear();
+            deleteSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        //* Spilled items are gone anyway once the Step is killed
+        clear();
+    }
+
+    @Override
+    public int capacity() {
+        return memory.capacity();
+    }
+
+    int spilledSize() {
+        return spilled;
+    }
+
+    private void write(Message message) {
+        byte[] subject = message.getSubjectType().getBytes(StandardCharsets.UTF_8);
+        byte[] data = null;
+        if (!mustStayOnHeap(message))
+            data = codec.encode(message.getData());
+
+        int recordSize = 1 + 4 + subject.length + (data != null ? 8 + 4 + data.length : 8);
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.remaining() < recordSize)
+            segment = newSegment(Math.max(segmentSize, recordSize));
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(segment.writePosition);
+        buffer.put(data != null ? ENCODED : HEAP_REFERENCE);
+        buffer.putInt(subject.length);
+        buffer.put(subject);
+        if (data != null) {
+            buffer.putLong(message.journalSequence);
+            buffer.putInt(data.length);
+            buffer.put(data);
+        } else {
+            long key = heapReferenceSequence++;
+            heapReferences.put(key, message);
+            buffer.putLong(key);
+        }
+        segment.writePosition = buffer.position();
+        //* The consumer may have found nothing spilled while encoding and is blocked on the in-memory queue
+        if (spilled++ == 0)
+            memory.signal();
+    }
+
+    private Message read(boolean remove) {
+        Segment segment = segments.peekFirst();
+        while (segment.readPosition == segment.writePosition) {
+            segments.pollFirst().delete();
+            segment = segments.peekFirst();
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(segment.readPosition);
+        byte kind = buffer.get();
+        byte[] subject = new byte[buffer.getInt()];
+        buffer.get(subject);
+
+        Message message;
+        if (kind == ENCODED) {
+            long journalSequence = buffer.getLong();
+            byte[] data = new byte[buffer.getInt()];
+            buffer.get(data);
+            message = new Message(codec.decode(data), new String(subject, StandardCharsets.UTF_8));
+            message.journalSequence = journalSequence;
+        } else {
+            long key = buffer.getLong();
+            message = remove ? heapReferences.remove(key) : heapReferences.get(key);
+        }
+
+        if (remove) {
+            segment.readPosition = buffer.position();
+            spilled--;
+            if (segment.readPosition == segment.writePosition) {
+                if (segments.size() > 1) {
+                    segments.pollFirst().delete();
+                } else {
+                    segment.readPosition = 0;
+                    segment.writePosition = 0;
+                }
+            }
+        }
+        return message;
+    }
+
+    //* Conflation markers reference their in-memory slot, they can't go through the codec
+    private boolean mustStayOnHeap(Message message) {
+        String subjectType = message.getSubjectType();
+        return message.getData().isExpirable() ||
+                Conflation.isMarker(message.getData()) ||
+                subjectType.equals(BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()) ||
+                subjectType.equals("POISON-PILL");
+    }
+
+    private Segment newSegment(int size) {
+        try {
+            File file = File.createTempFile("stepping-spill-", ".segment", directory);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                Segment segment = new Segment(file, buffer);
+                segments.addLast(segment);
+                return segment;
+            }
+        } catch (IOException e) {
+            throw new SteppingSystemException("Spill-over segment creation FAILED", e);
+        }
+    }
+
+    private void deleteSegments() {
+        Segment segment;
+        while ((segment = segments.pollFirst()) != null) {
+            segment.delete();
+        }
+        heapReferences.clear();
+        spilled = 0;
+        spilling = false;
+    }
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+
+        Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        //* The mapping itself is released by the GC, the file is removed from the directory right away
+        void delete() {
+            file.delete();
+        }
+    }
+}
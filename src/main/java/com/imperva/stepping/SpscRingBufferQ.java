@@ -0,0 +1,68 @@
+package com.imperva.stepping;
+
+import java.util.function.Supplier;
+
+/**
+ * Single Producer Single Consumer ring buffer (Lamport style with cached indexes).
+ */
+class SpscRingBufferQ<T> extends RingBufferQ<T> {
+    private long producerCachedConsumerIndex;//* Accessed by the producer thread only
+    private long consumerCachedProducerIndex;//* Accessed by the consumer thread only
+
+    SpscRingBufferQ(int capacity) {
+        super(capacity);
+    }
+
+    SpscRingBufferQ(int capacity, Supplier<T> envelopeFactory) {
+        super(capacity, envelopeFactory);
+    }
+
+    @Override
+    long claim() {
+        long produced = producerIndex.get();
+        if (produced - producerCachedConsumerIndex >= capacity) {
+            producerCachedConsumerIndex = consumerIndex.get();
+            if (produced - producerCachedConsumerIndex >= capacity)
+                return -1;
+        }
+        return produced;
+    }
+
+    @Override
+    void publish(long sequence) {
+        producerIndex.set(sequence + 1);
+        signalConsumer();
+    }
+
+    @Override
+    T pollItem() {
+        long consumed = readIndex;
+        if (consumed >= consumerCachedProducerIndex) {
+            consumerCachedProducerIndex = producerIndex.get();
+            if (consumed >= consumerCachedProducerIndex)
+                return null;
+        }
+        readIndex = consumed + 1;
+        return buffer.get(index(consumed));
+    }
+
+    @Override
+    T peekItem(long sequence) {
+        if (sequence >= consumerCachedProducerIndex) {
+            consumerCachedProducerIndex = producerIndex.get();
+            if (sequence >= consumerCachedProducerIndex)
+                return null;
+        }
+        return buffer.get(index(sequence));
+    }
+
+    @Override
+    void releaseSlots(long from, long to) {
+        if (!envelopes) {
+            for (long sequence = from; sequence < to; sequence++) {
+                buffer.lazySet(index(sequence), null);
+            }
+        }
+        consumerIndex.lazySet(to);
+    }
+}
@@ -1,5 +1,7 @@
 package com.imperva.stepping;
 
+import java.util.List;
+
 public interface Step extends IIdentity {
 
       void init(Container cntr, Shouter shouter);
@@ -14,6 +16,13 @@ public interface Step extends IIdentity {
 
       default void onSubjectUpdate(Data data, String subjectType){ }
 
+      //* Called instead of onSubjectUpdate when StepConfig.setBatchDrainSize() is set. The list is reused, copy it to keep it
+      default void onSubjectUpdateBatch(List<Message> messages) {
+            for (Message message : messages) {
+                  onSubjectUpdate(message.getData(), message.getSubjectType());
+            }
+      }
+
       default void onTickCallBack() {
             throw new SteppingSystemException("onTickCallBack not implemented");
       }
@@ -11,7 +11,22 @@ public class StepConfig {
     private boolean enableTickCallback;
     private IDistributionStrategy distributionStrategy = new All2AllDistributionStrategy();
     private int boundQueueCapacity;
+    private QueueType queueType = QueueType.BLOCKING;
+    private int ringBufferCapacity;
+    private int batchDrainSize;
+    private WaitStrategy waitStrategy;
+    private boolean recycleMessageEnvelopes;
+    private IDataCodec spillOverCodec;
+    private String spillOverDirectory;
+    private int spillOverSegmentSize;
+    private IDataCodec journalCodec;
+    private String journalDirectory;
+    private int journalSegmentSize;
+    private long journalSyncInterval;
+    private boolean workStealing;
+    private boolean consumerGroup;
     private MonitorStepConfig monitorStepConfig;
+    private AutoScaleConfig autoScaleConfig;
 
     public StepConfig() {
         SteppingProperties stepProp = SteppingProperties.getInstance();
@@ -20,7 +35,19 @@ public class StepConfig {
         runningPeriodicDelayUnit = TimeUnit.valueOf(stepProp.getProperty("stepping.default.step.delay.unit").toUpperCase());
         enableTickCallback = new Boolean(stepProp.getProperty("stepping.default.step.enable.tickcallback"));
         boundQueueCapacity = new Integer(stepProp.getProperty("stepping.default.step.bound.queue"));
+        ringBufferCapacity = new Integer(stepProp.getProperty("stepping.default.step.ring.buffer.capacity"));
+        batchDrainSize = new Integer(stepProp.getProperty("stepping.default.step.batch.drain.size"));
+        waitStrategy = WaitStrategy.valueOf(stepProp.getProperty("stepping.default.step.wait.strategy").toUpperCase());
+        recycleMessageEnvelopes = new Boolean(stepProp.getProperty("stepping.default.step.recycle.message.envelopes"));
+        spillOverDirectory = stepProp.getProperty("stepping.default.step.spill.directory");
+        spillOverSegmentSize = new Integer(stepProp.getProperty("stepping.default.step.spill.segment.size"));
+        journalDirectory = stepProp.getProperty("stepping.default.step.journal.directory");
+        journalSegmentSize = new Integer(stepProp.getProperty("stepping.default.step.journal.segment.size"));
+        journalSyncInterval = new Long(stepProp.getProperty("stepping.default.step.journal.sync.interval"));
+        workStealing = new Boolean(stepProp.getProperty("stepping.default.step.work.stealing"));
+        consumerGroup = new Boolean(stepProp.getProperty("stepping.default.step.consumer.group"));
         monitorStepConfig = new MonitorStepConfig();
+        autoScaleConfig = new AutoScaleConfig();
     }
 
     public long getRunningInitialDelay() {
@@ -79,6 +106,137 @@ public class StepConfig {
         this.boundQueueCapacity = boundQueueCapacity;
     }
 
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+    }
+
+    //* Used by the ring buffer queues when BoundQueueCapacity is not set. Rounded up to a power of two
+    public int getRingBufferCapacity() {
+        return ringBufferCapacity;
+    }
+
+    public void setRingBufferCapacity(int ringBufferCapacity) {
+        this.ringBufferCapacity = ringBufferCapacity;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public boolean isRecycleMessageEnvelopes() {
+        return recycleMessageEnvelopes;
+    }
+
+    //* Ring buffer QueueTypes only. Message envelopes are pre-allocated per slot and reused instead of allocated per publish
+    public void setRecycleMessageEnvelopes(boolean recycleMessageEnvelopes) {
+        this.recycleMessageEnvelopes = recycleMessageEnvelopes;
+    }
+
+    public IDataCodec getSpillOverCodec() {
+        return spillOverCodec;
+    }
+
+    //* Once the Step's bounded queue is full, publishers spill the overflow to disk through this codec instead of blocking
+    public void setSpillOverCodec(IDataCodec spillOverCodec) {
+        this.spillOverCodec = spillOverCodec;
+    }
+
+    //* Where the spill-over segment files are created. Empty means java.io.tmpdir
+    public String getSpillOverDirectory() {
+        return spillOverDirectory;
+    }
+
+    public void setSpillOverDirectory(String spillOverDirectory) {
+        this.spillOverDirectory = spillOverDirectory;
+    }
+
+    public int getSpillOverSegmentSize() {
+        return spillOverSegmentSize;
+    }
+
+    public void setSpillOverSegmentSize(int spillOverSegmentSize) {
+        this.spillOverSegmentSize = spillOverSegmentSize;
+    }
+
+    public IDataCodec getJournalCodec() {
+        return journalCodec;
+    }
+
+    //* Enables the write-ahead journal of the Step's queue. Unconsumed messages are replayed on restart during onRestate
+    public void setJournalCodec(IDataCodec journalCodec) {
+        this.journalCodec = journalCodec;
+    }
+
+    //* Required when the journal is enabled. Each Step journals to its own sub directory, named after the Step id
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public void setJournalSegmentSize(int journalSegmentSize) {
+        this.journalSegmentSize = journalSegmentSize;
+    }
+
+    //* In milliseconds. 0 means each publish waits for its record to be on disk (group commit)
+    public long getJournalSyncInterval() {
+        return journalSyncInterval;
+    }
+
+    public void setJournalSyncInterval(long journalSyncInterval) {
+        this.journalSyncInterval = journalSyncInterval;
+    }
+
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    //* Duplicated nodes only. Idle nodes take order-insensitive messages from the tail of the busiest sibling's queue
+    public void setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+    }
+
+    public boolean isConsumerGroup() {
+        return consumerGroup;
+    }
+
+    //* Duplicated nodes consume from a single shared queue, BoundQueueCapacity is then the capacity of the whole group
+    public void setConsumerGroup(boolean consumerGroup) {
+        this.consumerGroup = consumerGroup;
+    }
+
+    public AutoScaleConfig getAutoScaleConfig() {
+        return autoScaleConfig;
+    }
+
+    //* Adds and removes duplicated nodes at runtime, NumOfNodes is then the initial number of nodes
+    public void setAutoScaleConfig(AutoScaleConfig autoScaleConfig) {
+        this.autoScaleConfig = autoScaleConfig;
+    }
+
+    public int getBatchDrainSize() {
+        return batchDrainSize;
+    }
+
+    //* Maximum number of queued messages delivered in a single onSubjectUpdateBatch() call. 0 or 1 disables batching
+    public void setBatchDrainSize(int batchDrainSize) {
+        this.batchDrainSize = batchDrainSize;
+    }
+
     public String getRunningPeriodicCronDelay() {
         return runningPeriodicCronDelay;
     }
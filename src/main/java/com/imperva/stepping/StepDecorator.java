@@ -2,13 +2,22 @@ package com.imperva.stepping;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 class StepDecorator implements IStepDecorator {
+    private static final long WORK_STEALING_INTERVAL_MICROS = 500;
+    private static final int WORK_STEALING_MIN_VICTIM_SIZE = 2;
+    private static final int WORK_STEALING_MAX_SCANNED = 16;
     private final Logger logger = LoggerFactory.getLogger(StepDecorator.class);
     protected Container container;
     Q<Message> q;
@@ -17,13 +26,40 @@ class StepDecorator implements IStepDecorator {
     private String subjectDistributionID = "default";
     volatile boolean dead = false;
     private Follower follower;
-    private CyclicBarrier cb;
     private String id;
     private Shouter shouter;
     HashMap<String, SubjectUpdateEvent> subjectUpdateEvents = new HashMap<>();
     private boolean isSystemStep;
     private Boolean isMonitorEnabledForStep;
     private MonitorAgent monitorAgent;
+    StepJournal journal;
+    private final SubjectRoute tickCallbackRoute = SubjectRoute.tickCallback();
+    private final SubjectRoute poisonPillRoute = SubjectRoute.poisonPill();
+    private final SubjectRoute retireRoute = SubjectRoute.retire();
+    private volatile boolean retired;
+    private volatile boolean stopped;
+    private volatile List<IStepDecorator> successors;//* Autoscaling, set once the queue was handed over
+    private volatile Dispatcher.DispatchedStep dispatchedStep;//* ExecutionMode.DISPATCHER only
+    private final AtomicBoolean tickPending = new AtomicBoolean();//* At most one tick is queued
+    private final TickMetrics tickMetrics = new TickMetrics();
+    private long lastTickAt;//* Written by the tick timer only
+    private volatile long tickQueuedAt;
+    private volatile long tickInterval;
+    private volatile long activity;//* Single writer, the thread processing the Step's messages, see getActivity()
+    private IExceptionHandler fusedExceptionHandler;//* Set when the Step is fused to the thread shouting its subject
+    private final ReentrantLock fusedLock = new ReentrantLock();//* Held by the shouting thread running the fused Step
+    //* Compiled by attachSubjects(), routes is published before routesBySubject so a resolved id is always in range
+    private volatile SubjectRoute[] routes = {tickCallbackRoute, poisonPillRoute};
+    private volatile Map<String, SubjectRoute> routesBySubject = Collections.emptyMap();
+    private int batchDrainSize;
+    private BlockingDequeQ<Message> stealableQueue;//* Set when work stealing is enabled
+    private ConsumerGroupQ<Message> consumerGroup;
+    private volatile List<IStepDecorator> siblings = Collections.emptyList();
+    private volatile boolean waitingToSteal;//* Blocked on its own queue, see takeOrSteal()
+    private final Predicate<Message> stealable = (message) -> route(message).orderInsensitive;
+    private final List<Message> drained = new ArrayList<>();
+    private final List<Message> batch = new ArrayList<>();
+    private final List<Message> batchView = Collections.unmodifiableList(batch);
 
 
     StepDecorator(Step step) {
@@ -35,10 +71,12 @@ class StepDecorator implements IStepDecorator {
         logger.debug("Initializing Step - " + getStep().getId());
         container = cntr;
         step.init(container, shouter);
-        q = new Q<>(getConfig().getBoundQueueCapacity());
+        q = createQ();
+        journal = createJournal();
         this.shouter = shouter;
         isSystemStep = isSystemStep();
         isMonitorEnabledForStep = localStepConfig.getIsMonitorEnabledForStep();
+        batchDrainSize = localStepConfig.getBatchDrainSize();
         if (isMonitorEnabledForStep)
             monitorAgent = new MonitorAgent(shouter, getConfig().getMonitorEmmitTimeout());
     }
@@ -47,6 +85,10 @@ class StepDecorator implements IStepDecorator {
     public void onRestate() {
         logger.info("Start Restate phase for Step - " + getStep().getId());
         step.onRestate();
+        if (journal != null && journal.getRecoveredCount() > 0) {
+            logger.info("Replaying " + journal.getRecoveredCount() + " journaled messages for Step - " + getStep().getId());
+            journal.replay(this::replayMessage);
+        }
     }
 
     @Override
@@ -59,23 +101,175 @@ class StepDecorator implements IStepDecorator {
         step.onSubjectUpdate(data, subjectType);
     }
 
+    @Override
+    public void onSubjectUpdateBatch(List<Message> messages) {
+        step.onSubjectUpdateBatch(messages);
+    }
+
     @Override
     public void queueSubjectUpdate(Data data, String subjectType) {
         if (StringUtils.isEmpty(subjectType) || data == null)
             throw new SteppingException("Can't queue an empty Subject or empty Data");
-        q.queue(new Message(data, subjectType));
+        if (successors != null) {
+            redistribute(data, subjectType);
+            return;
+        }
+        queue(data, subjectType);
+        if (successors != null)
+            handOverLeft();
+    }
+
+    private void queue(Data data, String subjectType) {
+        SubjectRoute route = routesBySubject.get(subjectType);
+        if (route != null && route.fused) {
+            processFused(route, data);
+            return;
+        }
+        if (route != null && route.conflation != null) {
+            route.conflation.publish(data, route.markerQueue, true);
+            wakeConsumer();
+            return;
+        }
+        if (journal == null) {
+            q.queue(route != null ? route.writer : Message.WRITER, data, subjectType);
+            wakeConsumer();
+            return;
+        }
+
+        //* Never blocks under the journal lock, the checkpoints of all the journaled Steps share the same thread
+        Message message = new Message(data, subjectType, route != null ? route.id : SubjectRoute.UNRESOLVED);
+        long sequence;
+        while ((sequence = appendAndOffer(message)) < 0) {
+            q.awaitCapacity();
+        }
+        wakeConsumer();
+        journal.sync(sequence);
+    }
+
+    //* The journal sequence of the queued message, -1 if the queue was full
+    private long appendAndOffer(Message message) {
+        journal.getLock().lock();
+        try {
+            long sequence = journal.append(message);
+            if (!q.offer(message)) {
+                journal.rollback(message);
+                return -1;
+            }
+            return sequence;
+        } finally {
+            journal.getLock().unlock();
+        }
     }
 
     @Override
     public boolean offerQueueSubjectUpdate(Data data, String subjectType) {
         if (StringUtils.isEmpty(subjectType) || data == null)
             throw new SteppingException("Can't offer an empty Subject or empty Data");
-        return q.offer(new Message(data, subjectType));
+        if (successors != null) {
+            redistribute(data, subjectType);
+            return true;
+        }
+        boolean queued = offer(data, subjectType);
+        if (successors != null)
+            handOverLeft();
+        return queued;
+    }
+
+    private boolean offer(Data data, String subjectType) {
+        SubjectRoute route = routesBySubject.get(subjectType);
+        if (route != null && route.fused) {
+            processFused(route, data);
+            return true;
+        }
+        if (route != null && route.conflation != null)
+            return wakeConsumer(route.conflation.publish(data, route.markerQueue, false));
+        if (journal == null)
+            return wakeConsumer(q.offer(route != null ? route.writer : Message.WRITER, data, subjectType));
+
+        Message message = new Message(data, subjectType, route != null ? route.id : SubjectRoute.UNRESOLVED);
+        long sequence = appendAndOffer(message);
+        if (sequence < 0)
+            return false;
+        wakeConsumer();
+        journal.sync(sequence);
+        return true;
+    }
+
+    @Override
+    public void queueControl(Data data, String subjectType) {
+        if (StringUtils.isEmpty(subjectType) || data == null)
+            throw new SteppingException("Can't queue an empty control Subject or empty Data");
+        q.queueControl(new Message(data, subjectType, resolveRoute(subjectType).id));
+        wakeConsumer();
+    }
+
+    private boolean wakeConsumer(boolean queued) {
+        if (queued)
+            wakeConsumer();
+        return queued;
+    }
+
+    //* A message was queued, schedules the Step on the dispatcher or wakes up an idle sibling that may steal it
+    private void wakeConsumer() {
+        Dispatcher.DispatchedStep dispatched = dispatchedStep;
+        if (dispatched != null)
+            dispatched.schedule();
+        else if (stealableQueue != null && q.approximateSize() >= WORK_STEALING_MIN_VICTIM_SIZE)
+            wakeThieves();
+    }
+
+    private void wakeThieves() {
+        for (IStepDecorator sibling : siblings) {
+            sibling.wakeThief();
+        }
     }
 
     @Override
     public void clearQueueSubject() {
-        q.clear();
+        if (journal == null) {
+            q.clear();
+            clearConflation();
+            return;
+        }
+        journal.getLock().lock();
+        try {
+            q.clear();
+            journal.acknowledgeAll();
+        } finally {
+            journal.getLock().unlock();
+        }
+    }
+
+    private void clearConflation() {
+        for (SubjectRoute route : routes) {
+            if (route.conflation != null)
+                route.conflation.clear();
+        }
+    }
+
+    //* Never waits for the Step, a tick firing while the previous one is still queued is coalesced into it
+    @Override
+    public void tick() {
+        long now = System.nanoTime();
+        long interval = lastTickAt != 0 ? now - lastTickAt : 0;
+        lastTickAt = now;
+        if (!tickPending.compareAndSet(false, true)) {
+            tickMetrics.missed();
+            return;
+        }
+        tickInterval = interval;
+        tickQueuedAt = now;
+        try {
+            queueControl(new Data(SubjectRoute.TICK), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name());
+        } catch (RuntimeException e) {
+            tickPending.set(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public TickMetrics getTickMetrics() {
+        return tickMetrics;
     }
 
     @Override
@@ -95,54 +289,47 @@ class StepDecorator implements IStepDecorator {
             while (!dead) {
                 if (Thread.currentThread().isInterrupted())
                     throw new InterruptedException();
-                Message message = q.take();
-
-                boolean isTickCallBack = message.getSubjectType().equals(BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name());
-
-                if (isMonitorEnabledForStep && !isSystemStep) {
-                    monitorAgent.start(message.getData().getSize(), q.size());
-                }
-
-                if (message.getData().isExpirable()) {
-                    boolean succeeded = message.getData().tryGrabAndExpire();
-                    if (!succeeded) {
-                        continue;
-                    }
-                }
+                if (isRetiredAndDrained())
+                    return;
+                Message message = siblings.isEmpty() ? q.take() : takeOrSteal();
+                if (message == null)
+                    continue;
+                process(message);
+            }
+        } catch (InterruptedException e) {
+            throw new SteppingSystemException(e);
+        } catch (Exception e) {
+            throw new IdentifiableSteppingException(getStep().getId(), "DataSink FAILED", e);
+        } catch (Error err) {
+            throw new IdentifiableSteppingError(getStep().getId(), "DataSink FAILED - ERROR", err);
+        }
+    }
 
-                if (message.getSubjectType().equals("POISON-PILL")) {
-                    logger.info("Taking a Poison Pill. " + getStep().getId() + " is going to die");
-                    dead = true;
-                    logger.info("I am dead - " + getStep().getId());
-                    throw new InterruptedException();
-                }
+    @Override
+    public void setDispatcher(Dispatcher dispatcher) {
+        if (getConfig().isWorkStealing())
+            throw new IdentifiableSteppingException(getStep().getId(), "Work stealing can't be combined with ExecutionMode.DISPATCHER");
+        //* The group shares one queue but only the node it was queued through would be scheduled
+        if (consumerGroup != null)
+            throw new IdentifiableSteppingException(getStep().getId(), "Consumer group can't be combined with ExecutionMode.DISPATCHER");
+        dispatchedStep = dispatcher.register(this);
+    }
 
-                if (!isTickCallBack) {
-                    SubjectUpdateEvent subjectUpdateEvent = subjectUpdateEvents.get(message.getSubjectType());
-                    if (subjectUpdateEvent != null)
-                        subjectUpdateEvent.onUpdate(message.getData());
-
-                    onSubjectUpdate(message.getData(), message.getSubjectType());
-                } else {
-                    try {
-                        onTickCallBack();
-                        if (getConfig().getRunningPeriodicCronDelay() != null) {
-                            try {
-                                changeTickCallBackDelay(getConfig().getRunningPeriodicCronDelay());
-                            } catch (Exception x) {
-                                throw new SteppingException(x.toString());
-                            }
-                        }
-                    } finally {
-                        cb = (CyclicBarrier) message.getData().getValue();
-                        cb.await();
-                    }
-                }
-                if (isMonitorEnabledForStep && !isSystemStep) {
-                    monitorAgent.stop();
-                }
+    //* ExecutionMode.DISPATCHER, never blocks waiting for messages
+    @Override
+    public void dispatch(int maxMessages) {
+        try {
+            for (int i = 0; i < maxMessages && !dead; i++) {
+                if (isRetiredAndDrained())
+                    return;
+                Message message = q.poll();
+                if (message == null)
+                    return;
+                process(message);
             }
-        } catch (InterruptedException | BrokenBarrierException e) {
+        } catch (InterruptedException e) {
+            if (dead)
+                return;//* Poison pill, the Step has no thread to stop
             throw new SteppingSystemException(e);
         } catch (Exception e) {
             throw new IdentifiableSteppingException(getStep().getId(), "DataSink FAILED", e);
@@ -151,6 +338,510 @@ class StepDecorator implements IStepDecorator {
         }
     }
 
+    @Override
+    public void fuse(IExceptionHandler exceptionHandler) {
+        validateFusion();
+        this.fusedExceptionHandler = exceptionHandler;
+    }
+
+    @Override
+    public boolean isFused() {
+        return fusedExceptionHandler != null;
+    }
+
+    //* The Step only ever runs on the thread shouting its single subject, anything that needs its own thread or queue is rejected
+    private void validateFusion() {
+        if (listSubjectsToFollow().size() != 1)
+            throw new IdentifiableSteppingException(getStep().getId(), "A fused Step must follow exactly one subject");
+        FollowRequest followRequest = listSubjectsToFollow().get().get(0);
+        StepConfig config = getConfig();
+        AutoScaleConfig autoScaleConfig = config.getAutoScaleConfig();
+        if (config.getNumOfNodes() > 1 || (autoScaleConfig != null && autoScaleConfig.isEnable()))
+            throw new IdentifiableSteppingException(getStep().getId(), "A fused Step can't be duplicated or autoscaled");
+        if (config.isEnableTickCallback())
+            throw new IdentifiableSteppingException(getStep().getId(), "A fused Step can't have tick callbacks");
+        if (followRequest.getKeyExtractor() != null || config.getJournalCodec() != null || config.getBatchDrainSize() > 1)
+            throw new IdentifiableSteppingException(getStep().getId(), "A fused Step can't be combined with conflation, journal or batch drain");
+        if (config.isConsumerGroup() || config.isWorkStealing())
+            throw new IdentifiableSteppingException(getStep().getId(), "A fused Step can't be combined with consumer groups or work stealing");
+    }
+
+    /**
+     * Fused subject, the Data is processed right away on the shouting thread. A failure is identified by this Step and
+     * handled as if it was thrown by its own DataSink, the shouting Step is not affected. A Step whose failure was not
+     * handled is stopped and ignores further updates.
+     *
+     * The fused subject is expected to be shouted by one thread at a time, a second shouting thread waits for the running
+     * update to complete to keep the Concurrency Policy. A Step shouting its own subject would re-enter it, the update is
+     * not delivered and reported as a failure instead.
+     */
+    private void processFused(SubjectRoute route, Data data) {
+        if (dead)
+            return;
+        if (fusedLock.isHeldByCurrentThread()) {
+            if (!fusedExceptionHandler.handle(new IdentifiableSteppingException(getStep().getId(), "Fused Step was re-entered by thread " + Thread.currentThread().getName() + ", subject " + route.subjectType + " can't be shouted by the fused Step itself"))) {
+                logger.debug("Exception was NOT handled successfully, fused Step is stopped");
+                dead = true;
+            }
+            return;
+        }
+        fusedLock.lock();
+        try {
+            if (dead || (data.isExpirable() && !data.tryGrabAndExpire()))
+                return;
+            if (isMonitorEnabledForStep && !isSystemStep)
+                monitorAgent.start(data.getSize(), 0);
+
+            if (route.subjectUpdateEvent != null)
+                route.subjectUpdateEvent.onUpdate(data);
+            onSubjectUpdate(data, route.subjectType);
+
+            if (isMonitorEnabledForStep && !isSystemStep)
+                monitorAgent.stop();
+        } catch (Exception e) {
+            if (!fusedExceptionHandler.handle(new IdentifiableSteppingException(getStep().getId(), "Fused DataSink FAILED", e))) {
+                logger.debug("Exception was NOT handled successfully, fused Step is stopped");
+                dead = true;
+            }
+        } catch (Error err) {
+            if (!fusedExceptionHandler.handle(new IdentifiableSteppingError(getStep().getId(), "Fused DataSink FAILED - ERROR", err))) {
+                logger.debug("Error was NOT handled successfully, fused Step is stopped");
+                dead = true;
+            }
+        } finally {
+            fusedLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isDispatchable() {
+        return !dead && !stopped && q.hasPending();
+    }
+
+    private void process(Message message) throws InterruptedException {
+        activity++;
+        try {
+            if (batchDrainSize > 1)
+                processBatch(message);
+            else
+                processMessage(message);
+        } finally {
+            if (journal != null && batchDrainSize <= 1)
+                journal.acknowledge(message);
+            q.release();
+            activity++;
+        }
+    }
+
+    //* Removed by the autoscaler, the backlog is processed first unless it belongs to the whole consumer group
+    private boolean isRetiredAndDrained() {
+        if (!retired || (consumerGroup == null && q.size() != 0))
+            return false;
+        if (!stopped)
+            logger.info("Step - " + getStep().getId() + " is retired, closing its DataSink");
+        stopped = true;
+        return true;
+    }
+
+    /**
+     * Work stealing. An idle node helps its busiest sibling. While a sibling has a backlog that can't be stolen right now
+     * the node waits for its own queue for a short while only, otherwise it blocks until a message is queued to it or a
+     * sibling's backlog builds up and wakes it, see wakeThief().
+     */
+    private Message takeOrSteal() throws InterruptedException {
+        Message message = q.take(0, TimeUnit.NANOSECONDS);
+        if (message != null)
+            return message;
+
+        IStepDecorator victim = busiestSibling();
+        if (victim != null) {
+            message = victim.stealQueueSubject();
+            if (message != null)
+                return message;
+            return q.take(WORK_STEALING_INTERVAL_MICROS, TimeUnit.MICROSECONDS);
+        }
+
+        waitingToSteal = true;
+        try {
+            //* Checked again once visible as waiting, a backlog built up in between would not wake us up
+            if (busiestSibling() != null)
+                return null;
+            return q.take(Long.MAX_VALUE, TimeUnit.NANOSECONDS);//* Unlike take(), returns null once signalled
+        } finally {
+            waitingToSteal = false;
+        }
+    }
+
+    private IStepDecorator busiestSibling() {
+        IStepDecorator victim = null;
+        int victimSize = WORK_STEALING_MIN_VICTIM_SIZE - 1;
+        for (IStepDecorator sibling : siblings) {
+            int size = sibling.getApproximateQSize();
+            if (size > victimSize) {
+                victim = sibling;
+                victimSize = size;
+            }
+        }
+        return victim;
+    }
+
+    @Override
+    public void wakeThief() {
+        if (waitingToSteal)
+            q.signal();
+    }
+
+    private void processMessage(Message message) throws InterruptedException {
+        SubjectRoute route = route(message);
+        if (route.kind == SubjectRoute.Kind.RETIRE)
+            return;//* Only wakes up the DataSink, see retire()
+        message = resolveConflated(route, message);
+        if (message == null)
+            return;
+
+        if (isMonitorEnabledForStep && !isSystemStep) {
+            monitorAgent.start(message.getData().getSize(), q.size());
+        }
+
+        if (message.getData().isExpirable()) {
+            boolean succeeded = message.getData().tryGrabAndExpire();
+            if (!succeeded) {
+                return;
+            }
+        }
+
+        if (route.kind == SubjectRoute.Kind.POISON_PILL) {
+            logger.info("Taking a Poison Pill. " + getStep().getId() + " is going to die");
+            dead = true;
+            logger.info("I am dead - " + getStep().getId());
+            throw new InterruptedException();
+        }
+
+        if (route.kind == SubjectRoute.Kind.DATA) {
+            if (route.subjectUpdateEvent != null)
+                route.subjectUpdateEvent.onUpdate(message.getData());
+
+            onSubjectUpdate(message.getData(), message.getSubjectType());
+        } else {
+            processTickCallBack();
+        }
+        if (isMonitorEnabledForStep && !isSystemStep) {
+            monitorAgent.stop();
+        }
+    }
+
+    private void processTickCallBack() {
+        long delay = System.nanoTime() - tickQueuedAt;
+        long interval = tickInterval;
+        tickPending.set(false);//* A tick firing from now on is queued, not coalesced
+        tickMetrics.delivered(delay, interval > 0 && delay > interval);
+        invokeTickCallBack();
+    }
+
+    private void invokeTickCallBack() {
+        onTickCallBack();
+        if (getConfig().getRunningPeriodicCronDelay() != null) {
+            try {
+                changeTickCallBackDelay(getConfig().getRunningPeriodicCronDelay());
+            } catch (Exception x) {
+                throw new SteppingException(x.toString());
+            }
+        }
+    }
+
+    /**
+     * Drains whatever is already queued (up to batchDrainSize) and delivers the data messages in a single
+     * onSubjectUpdateBatch() call. Tick callbacks and poison pills flush the pending batch first so ordering is kept.
+     */
+    private void processBatch(Message first) throws InterruptedException {
+        drained.add(first);
+        q.drainTo(drained, batchDrainSize - 1);
+        try {
+            for (Message message : drained) {
+                SubjectRoute route = route(message);
+                if (route.isControl()) {
+                    flushBatch();
+                    processMessage(message);
+                    continue;
+                }
+                message = resolveConflated(route, message);
+                if (message == null)
+                    continue;
+
+                if (message.getData().isExpirable() && !message.getData().tryGrabAndExpire())
+                    continue;
+
+                if (route.subjectUpdateEvent != null)
+                    route.subjectUpdateEvent.onUpdate(message.getData());
+
+                batch.add(message);
+            }
+            flushBatch();
+        } finally {
+            if (journal != null) {
+                for (Message message : drained) {
+                    journal.acknowledge(message);
+                }
+            }
+            drained.clear();
+            batch.clear();
+        }
+    }
+
+    private void flushBatch() {
+        if (batch.isEmpty())
+            return;
+
+        if (isMonitorEnabledForStep && !isSystemStep) {
+            int chunkSize = 0;
+            for (Message message : batch) {
+                chunkSize += message.getData().getSize();
+            }
+            monitorAgent.start(chunkSize, q.size());
+        }
+
+        onSubjectUpdateBatch(batchView);
+        batch.clear();
+
+        if (isMonitorEnabledForStep && !isSystemStep) {
+            monitorAgent.stop();
+        }
+    }
+
+    private boolean queueMarker(SubjectRoute route, Data marker, boolean blocking) {
+        if (!blocking)
+            return q.offer(route.writer, marker, route.subjectType);
+        q.queue(route.writer, marker, route.subjectType);
+        return true;
+    }
+
+    //* Conflated subjects queue markers, the Step gets the latest Data of the marker's key instead. Null when the key was
+    //* cleared after its marker was queued
+    private Message resolveConflated(SubjectRoute route, Message message) {
+        if (route.conflation == null || !Conflation.isMarker(message.getData()))
+            return message;
+        Data data = Conflation.take(message.getData());
+        return data != null ? new Message(data, message.getSubjectType(), route.id) : null;
+    }
+
+    private SubjectRoute route(Message message) {
+        int subjectId = message.subjectId;
+        if (subjectId != SubjectRoute.UNRESOLVED) {
+            SubjectRoute route = routes[subjectId];
+            //* A consumer group node may take a message stamped by another node, ids are per node
+            if (consumerGroup == null || route.subjectType.equals(message.getSubjectType()))
+                return route;
+        }
+        //* Messages that were not stamped by this Step (journal replay, spill-over, direct queueing)
+        return resolveRoute(message.getSubjectType());
+    }
+
+    private SubjectRoute resolveRoute(String subjectType) {
+        SubjectRoute route = routesBySubject.get(subjectType);
+        if (route != null)
+            return route;
+        if (subjectType.equals(tickCallbackRoute.subjectType))
+            return tickCallbackRoute;
+        if (subjectType.equals(poisonPillRoute.subjectType))
+            return poisonPillRoute;
+        if (subjectType.equals(retireRoute.subjectType))
+            return retireRoute;
+        return new SubjectRoute(SubjectRoute.UNRESOLVED, subjectType, SubjectRoute.Kind.DATA, subjectUpdateEvents.get(subjectType), null);
+    }
+
+    private void compileRoutes(List<FollowRequest> followRequests) {
+        List<SubjectRoute> routes = new ArrayList<>();
+        routes.add(tickCallbackRoute);
+        routes.add(poisonPillRoute);
+        Map<String, SubjectRoute> routesBySubject = new HashMap<>();
+        for (FollowRequest followRequest : followRequests) {
+            String subjectType = followRequest.getSubjectType();
+            if (routesBySubject.containsKey(subjectType) || subjectType.equals(tickCallbackRoute.subjectType) || subjectType.equals(poisonPillRoute.subjectType) || subjectType.equals(retireRoute.subjectType))
+                continue;
+            //* Any node takes any message of the shared queue, broadcast or per node routing would be silently broken
+            if (getConfig().isConsumerGroup() && !(getDistributionStrategy(subjectType) instanceof SharedDistributionStrategy))
+                throw new IdentifiableSteppingException(getStep().getId(), "Consumer group requires SharedDistributionStrategy. Subject: " + subjectType);
+            Conflation conflation = null;
+            if (followRequest.getKeyExtractor() != null) {
+                if (journal != null)
+                    throw new IdentifiableSteppingException(getStep().getId(), "Conflated subjects can't be journaled. Subject: " + subjectType);
+                conflation = new Conflation(subjectType, followRequest.getKeyExtractor());
+            }
+            SubjectRoute route = new SubjectRoute(routes.size(), subjectType, SubjectRoute.Kind.DATA, followRequest.getSubjectUpdateEvent(), conflation, followRequest.isOrderInsensitive());
+            if (conflation != null)
+                route.markerQueue = (marker, markerSubjectType, blocking) -> queueMarker(route, marker, blocking);
+            route.fused = followRequest.isFused() && isFused();
+            routes.add(route);
+            routesBySubject.put(subjectType, route);
+        }
+        this.routes = routes.toArray(new SubjectRoute[0]);
+        this.routesBySubject = routesBySubject;
+    }
+
+    @Override
+    public void setConsumerGroup(ConsumerGroupQ<Message> consumerGroup) {
+        this.consumerGroup = consumerGroup;
+    }
+
+    @Override
+    public ConsumerGroupQ<Message> getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    @Override
+    public void setSiblings(List<IStepDecorator> siblings) {
+        if (stealableQueue == null)
+            throw new IdentifiableSteppingException(getStep().getId(), "Work stealing is not enabled for this Step");
+        this.siblings = new ArrayList<>(siblings);
+    }
+
+    @Override
+    public Message stealQueueSubject() {
+        if (stealableQueue == null)
+            return null;
+        Message message = stealableQueue.steal(stealable, WORK_STEALING_MAX_SCANNED);
+        if (message != null)
+            message.subjectId = SubjectRoute.UNRESOLVED;//* Route ids are per node, the thief resolves it by name
+        return message;
+    }
+
+    @Override
+    public void retire() {
+        retired = true;
+        queueControl(new Data(retireRoute.subjectType), retireRoute.subjectType);
+    }
+
+    @Override
+    public boolean isRetired() {
+        return retired;
+    }
+
+    @Override
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    //* A distributor may have picked this node before it was detached, what it queues after the hand over is forwarded
+    //* as well. Either it sees the successors or the hand over sees its message in the queue
+    @Override
+    public void handOverQueueSubject(List<IStepDecorator> successors) {
+        if (!stopped)
+            throw new IdentifiableSteppingException(getStep().getId(), "Can't hand over the queue of a running Step");
+        if (consumerGroup != null)
+            return;
+        if (successors.isEmpty())
+            throw new IdentifiableSteppingException(getStep().getId(), "Can't hand over a queue without successors");
+        this.successors = new ArrayList<>(successors);
+        int left = handOverLeft();
+        if (left > 0)
+            logger.info(left + " messages of retired Step - " + getStep().getId() + " were re-distributed to " + successors.size() + " nodes");
+    }
+
+    //* Drains with the DataSink stopped, the lock keeps late producers from draining concurrently
+    private synchronized int handOverLeft() {
+        List<Message> left = new ArrayList<>();
+        q.drainTo(left, Integer.MAX_VALUE);
+        try {
+            for (Message message : left) {
+                SubjectRoute route = route(message);
+                if (route.isControl())
+                    continue;
+                message = resolveConflated(route, message);
+                if (message != null)
+                    redistribute(message.getData(), message.getSubjectType());
+            }
+        } finally {
+            q.release();
+        }
+        return left.size();
+    }
+
+    //* Through the distribution strategy of the Subject, the same one that picked this node
+    private void redistribute(Data data, String subjectType) {
+        List<IStepDecorator> successors = this.successors;
+        successors.get(0).getDistributionStrategy(subjectType).redistribute(successors, data, subjectType);
+    }
+
+    private Q<Message> createQ() {
+        QueueType queueType = getConfig().getQueueType() != null ? getConfig().getQueueType() : QueueType.BLOCKING;
+        WaitStrategy waitStrategy = getConfig().getWaitStrategy() != null ? getConfig().getWaitStrategy() : WaitStrategy.BLOCKING;
+        boolean recycle = getConfig().isRecycleMessageEnvelopes();
+        int capacity = getConfig().getBoundQueueCapacity();
+        if (queueType == QueueType.BLOCKING) {
+            if (recycle)
+                throw new IdentifiableSteppingException(getStep().getId(), "Recycled Message envelopes require a ring buffer QueueType");
+        } else if (capacity <= 0) {
+            capacity = getConfig().getRingBufferCapacity();
+        }
+
+        if (getConfig().isConsumerGroup())
+            return new Q<>(createConsumerGroupMember(queueType, capacity), waitStrategy);
+
+        IQueue<Message> queue = Q.createQueue(capacity, queueType, recycle ? Message::new : null);
+        if (getConfig().isWorkStealing())
+            stealableQueue = validateWorkStealing(queue, waitStrategy);
+        if (getConfig().getSpillOverCodec() != null)
+            queue = createSpillOverQ(queue, capacity, recycle);
+        return new Q<>(queue, waitStrategy);
+    }
+
+    private IQueue<Message> createConsumerGroupMember(QueueType queueType, int capacity) {
+        if (queueType != QueueType.BLOCKING)
+            throw new IdentifiableSteppingException(getStep().getId(), "Consumer group requires QueueType.BLOCKING");
+        if (getConfig().isWorkStealing() || getConfig().getSpillOverCodec() != null || getConfig().getJournalCodec() != null)
+            throw new IdentifiableSteppingException(getStep().getId(), "Consumer group can't be combined with work stealing, spill-over or journal");
+        //* Not duplicated (or not wired by the Algo), a group of one
+        if (consumerGroup == null)
+            consumerGroup = new ConsumerGroupQ<>(capacity);
+        return consumerGroup.member();
+    }
+
+    private BlockingDequeQ<Message> validateWorkStealing(IQueue<Message> queue, WaitStrategy waitStrategy) {
+        if (!(queue instanceof BlockingDequeQ) || waitStrategy != WaitStrategy.BLOCKING)
+            throw new IdentifiableSteppingException(getStep().getId(), "Work stealing requires QueueType.BLOCKING and WaitStrategy.BLOCKING");
+        if (getConfig().getSpillOverCodec() != null || getConfig().getJournalCodec() != null)
+            throw new IdentifiableSteppingException(getStep().getId(), "Work stealing can't be combined with spill-over or journal");
+        return (BlockingDequeQ<Message>) queue;
+    }
+
+    private IQueue<Message> createSpillOverQ(IQueue<Message> queue, int capacity, boolean recycle) {
+        if (capacity <= 0)
+            throw new IdentifiableSteppingException(getStep().getId(), "Spill-over requires a bound queue capacity");
+        if (recycle)
+            throw new IdentifiableSteppingException(getStep().getId(), "Spill-over can't be combined with recycled Message envelopes");
+        String directory = getConfig().getSpillOverDirectory();
+        if (StringUtils.isEmpty(directory))
+            directory = System.getProperty("java.io.tmpdir");
+        try {
+            return new SpillOverQ(queue, getConfig().getSpillOverCodec(), new File(directory), getConfig().getSpillOverSegmentSize());
+        } catch (SteppingException e) {
+            throw new IdentifiableSteppingException(getStep().getId(), "Spill-over queue creation FAILED", e);
+        }
+    }
+
+    private StepJournal createJournal() {
+        if (getConfig().getJournalCodec() == null)
+            return null;
+        if (getConfig().isRecycleMessageEnvelopes())
+            throw new IdentifiableSteppingException(getStep().getId(), "Journal can't be combined with recycled Message envelopes");
+        if (StringUtils.isEmpty(getConfig().getJournalDirectory()))
+            throw new IdentifiableSteppingException(getStep().getId(), "Journal directory is required");
+        try {
+            File directory = new File(getConfig().getJournalDirectory(), getStep().getId());
+            return new StepJournal(directory, getConfig().getJournalCodec(), getConfig().getJournalSegmentSize(), getConfig().getJournalSyncInterval());
+        } catch (SteppingException e) {
+            throw new IdentifiableSteppingException(getStep().getId(), "Journal creation FAILED", e);
+        }
+    }
+
+    private void replayMessage(Message message) {
+        try {
+            processMessage(message);
+        } catch (InterruptedException e) {
+            throw new IdentifiableSteppingException(getStep().getId(), "Journal replay FAILED", e);
+        }
+    }
+
     private void changeTickCallBackDelay(String cronExpression) {
       ((ContainerService) container).changeDelay(getStep().getId(), cronExpression);
     }
@@ -163,6 +854,8 @@ class StepDecorator implements IStepDecorator {
     public void attachSubjects() {
         Follower follower = listSubjectsToFollow();
         if (follower.size() != 0) {
+            //* Compiled before attaching so the very first updates are already routed
+            compileRoutes(follower.get());
             for (FollowRequest followRequest : follower.get()) {
                 ISubject s = container.getById(followRequest.getSubjectType());
                 if (s == null) {
@@ -176,9 +869,12 @@ class StepDecorator implements IStepDecorator {
             }
         } else {
             List<ISubject> subjects = container.getSonOf(ISubject.class);
+            List<FollowRequest> followed = new ArrayList<>();
             for (ISubject subject : subjects) {
-                followSubject(subject);
+                if (followSubject(subject))
+                    followed.add(new FollowRequest(subject.getType()));
             }
+            compileRoutes(followed);
         }
     }
 
@@ -193,11 +889,12 @@ class StepDecorator implements IStepDecorator {
         step.listSubjectsToFollow(follower);
     }
 
-    private void followSubject(ISubject iSubject) {
+    private boolean followSubject(ISubject iSubject) {
         try {
             boolean isAttached = followsSubject(iSubject.getType());
             if (isAttached)
                 iSubject.attach(this);
+            return isAttached;
         } catch (Exception e) {
             throw new IdentifiableSteppingException(getStep().getId(), "followSubject registration FAILED", e);
         }
@@ -218,6 +915,26 @@ class StepDecorator implements IStepDecorator {
         return q.size();
     }
 
+    @Override
+    public int getApproximateQSize() {
+        return q.approximateSize();
+    }
+
+    @Override
+    public boolean hasPending() {
+        return q.hasPending();
+    }
+
+    @Override
+    public long getActivity() {
+        return activity;
+    }
+
+    @Override
+    public boolean isDead() {
+        return dead;
+    }
+
     @Override
     public int getQCapacity() {
         return q.getCapacity();
@@ -279,8 +996,10 @@ class StepDecorator implements IStepDecorator {
     public void close() {
         logger.info("Forwarding Kill handling to Step - " + getStep().getId());
         onKill();
-        if (cb != null)
-            cb.reset();
+        if (q != null)
+            q.close();
+        if (journal != null)
+            journal.close();
     }
 
     @Override
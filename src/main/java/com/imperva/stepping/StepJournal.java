@@ -0,0 +1,423 @@
+package com.imperva.stepping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of the messages queued to a single Step.
+ *
+ * Every record gets a sequence number, the Step acknowledges the sequence of each message it consumed and the
+ * journal keeps only what was not acknowledged yet. Records are appended to segment files named after the sequence
+ * of their first record, a segment is deleted once all of its records are acknowledged. The acknowledged sequence is
+ * persisted to the checkpoint file periodically and on close.
+ *
+ * Durability:
+ * - syncInterval 0 (group commit) - append() returns only after the record was forced to disk. Concurrent
+ * publishers waiting for the same force are served by a single fsync.
+ * - syncInterval > 0 (batched fsync) - a background task forces the journal every syncInterval milliseconds. A crash
+ * of the process loses nothing, a crash of the OS may lose the last interval.
+ *
+ * Record layout: [int payload length][int payload crc32][long sequence][int subject length][subject][data]
+ */
+class StepJournal {
+    private static final Logger logger = LoggerFactory.getLogger(StepJournal.class);
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 8;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+    private static final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stepping.journal.sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final File directory;
+    private final IDataCodec codec;
+    private final int segmentSize;
+    private final long syncInterval;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final Object checkpointLock = new Object();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private volatile Segment tail;
+    private final FileChannel checkpoint;
+    private final ScheduledFuture<?> syncTask;
+    private final long recoveredFrom;
+    private final long recoveredTo;
+    private long nextSequence;
+    private volatile long appended = -1;
+    private volatile long synced = -1;
+    private volatile long acknowledged;
+    private long checkpointed;
+    private volatile boolean closed;
+    private volatile boolean replaying;
+
+    StepJournal(File directory, IDataCodec codec, int segmentSize, long syncInterval) {
+        if (codec == null)
+            throw new SteppingException("Journal Data codec is required");
+        if (segmentSize <= 0)
+            throw new SteppingException("Journal segment size must be a positive number");
+        if (syncInterval < 0)
+            throw new SteppingException("Journal sync interval can't be negative");
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new SteppingException("Journal directory " + directory.getAbsolutePath() + " can't be created");
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.syncInterval = syncInterval;
+
+        try {
+            checkpoint = FileChannel.open(new File(directory, CHECKPOINT_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            recoveredFrom = readCheckpoint();
+            recoveredTo = recover();
+        } catch (IOException e) {
+            throw new SteppingSystemException("Journal recovery FAILED in " + directory.getAbsolutePath(), e);
+        }
+        acknowledged = recoveredFrom;
+        checkpointed = recoveredFrom;
+        nextSequence = recoveredTo;
+        appended = recoveredTo - 1;
+        synced = appended;
+
+        long period = syncInterval > 0 ? syncInterval : CHECKPOINT_INTERVAL_MILLIS;
+        syncTask = syncer.scheduleWithFixedDelay(this::backgroundSync, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the message and stamps it with its sequence. Must be called in the same order the messages are queued.
+     * Returns the sequence, to be passed to sync() once the message is queued
+     */
+    long append(Message message) {
+        byte[] subject = message.getSubjectType().getBytes(StandardCharsets.UTF_8);
+        byte[] data = codec.encode(message.getData());
+        int payloadSize = 8 + 4 + subject.length + data.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+
+        long sequence = nextSequence++;
+        record.position(HEADER_SIZE);
+        record.putLong(sequence);
+        record.putInt(subject.length);
+        record.put(subject);
+        record.put(data);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, payloadSize);
+        record.putInt(0, payloadSize);
+        record.putInt(4, (int) crc.getValue());
+        record.position(0);
+
+        try {
+            Segment segment = segments.peekLast();
+            if (segment == null || segment.size + record.remaining() > segmentSize && segment.size > 0)
+                segment = newSegment(sequence);
+            int recordSize = record.remaining();
+            while (record.hasRemaining()) {
+                segment.size += segment.channel.write(record);
+            }
+            segment.lastRecordSize = recordSize;
+        } catch (IOException e) {
+            nextSequence--;
+            throw new SteppingSystemException("Journal append FAILED", e);
+        }
+        message.journalSequence = sequence;
+        appended = sequence;
+        return sequence;
+    }
+
+    //* Call under the same lock as append() when the message could not be queued after all
+    void rollback(Message message) {
+        long sequence = message.journalSequence;
+        Segment segment = segments.peekLast();
+        if (sequence != nextSequence - 1 || segment == null || segment.lastRecordSize == 0)
+            throw new SteppingSystemException("Journal can roll back only the last appended record");
+        try {
+            segment.size -= segment.lastRecordSize;
+            segment.lastRecordSize = 0;
+            segment.channel.truncate(segment.size);
+            segment.channel.position(segment.size);
+        } catch (IOException e) {
+            throw new SteppingSystemException("Journal rollback FAILED", e);
+        }
+        nextSequence--;
+        appended = sequence - 1;
+        message.journalSequence = -1;
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    //* Group commit. Blocks until the sequence is on disk, no-op when a sync interval is configured
+    void sync(long sequence) {
+        if (syncInterval > 0 || synced >= sequence)
+            return;
+        synchronized (syncLock) {
+            if (synced >= sequence)
+                return;
+            force();
+        }
+    }
+
+    //* Called by the consumer once the message was processed. Messages are acknowledged in order
+    void acknowledge(Message message) {
+        long sequence = message.journalSequence;
+        if (sequence >= acknowledged)
+            acknowledged = sequence + 1;
+    }
+
+    //* Call under the append lock after the queue was cleared, the dropped messages must not be replayed
+    void acknowledgeAll() {
+        acknowledged = nextSequence;
+    }
+
+    //* Number of records left unacknowledged by the previous run, replayed by replay()
+    long getRecoveredCount() {
+        return recoveredTo - recoveredFrom;
+    }
+
+    /**
+     * Delivers, in order, the messages left unacknowledged by the previous run and acknowledges them.
+     * Must be called before the Step starts consuming its queue
+     */
+    void replay(Consumer<Message> consumer) {
+        if (recoveredTo == recoveredFrom)
+            return;
+        Segment[] recovered;
+        lock.lock();
+        try {
+            //* Segments must not be deleted while being scanned
+            replaying = true;
+            recovered = segments.stream().filter(s -> s.firstSequence < recoveredTo).toArray(Segment[]::new);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            for (Segment segment : recovered) {
+                segment.scan((sequence, record) -> {
+                    if (sequence < recoveredFrom || sequence >= recoveredTo)
+                        return;
+                    Message message = decode(record);
+                    message.journalSequence = sequence;
+                    consumer.accept(message);
+                    acknowledge(message);
+                });
+            }
+        } catch (IOException e) {
+            throw new SteppingSystemException("Journal replay FAILED", e);
+        } finally {
+            replaying = false;
+        }
+        checkpoint();
+    }
+
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        syncTask.cancel(false);
+        try {
+            synchronized (syncLock) {
+                force();
+            }
+            synchronized (checkpointLock) {
+                checkpoint();
+                checkpoint.close();
+            }
+            lock.lock();
+            try {
+                for (Segment segment : segments) {
+                    segment.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to close journal " + directory.getAbsolutePath(), e);
+        }
+    }
+
+    private void backgroundSync() {
+        try {
+            if (syncInterval > 0) {
+                synchronized (syncLock) {
+                    force();
+                }
+            }
+            checkpoint();
+        } catch (Exception e) {
+            logger.error("Journal sync FAILED for " + directory.getAbsolutePath(), e);
+        }
+    }
+
+    private void force() {
+        long target = appended;
+        if (synced >= target)
+            return;
+        Segment segment = tail;
+        try {
+            //* Older segments were forced when rolled over
+            if (segment != null)
+                segment.channel.force(false);
+        } catch (IOException e) {
+            throw new SteppingSystemException("Journal sync FAILED", e);
+        }
+        synced = target;
+    }
+
+    //* Persists the acknowledged sequence and deletes the segments that are fully acknowledged
+    private void checkpoint() {
+        long ack = acknowledged;
+        synchronized (checkpointLock) {
+            if (ack <= checkpointed || !checkpoint.isOpen())
+                return;
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(8);
+                buffer.putLong(0, ack);
+                checkpoint.write(buffer, 0);
+                checkpoint.force(false);
+                checkpointed = ack;
+            } catch (IOException e) {
+                throw new SteppingSystemException("Journal checkpoint FAILED", e);
+            }
+        }
+
+        lock.lock();
+        try {
+            while (!replaying && segments.size() > 1) {
+                Segment first = segments.pollFirst();
+                Segment second = segments.peekFirst();
+                if (second.firstSequence > ack) {
+                    segments.addFirst(first);
+                    break;
+                }
+                first.delete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpoint.size() < 8)
+            return 0;
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining() && checkpoint.read(buffer, buffer.position()) >= 0) ;
+        return buffer.getLong(0);
+    }
+
+    //* Opens the existing segments, cuts a torn tail and returns the sequence following the last valid record
+    private long recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        Arrays.sort(files);
+        long next = recoveredFrom;
+        for (File file : files) {
+            long firstSequence = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(file, firstSequence, FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE));
+            long[] last = {firstSequence - 1};
+            segment.size = segment.scan((sequence, record) -> last[0] = sequence);
+            if (segment.size < segment.channel.size()) {
+                logger.warn("Truncating torn journal record in " + file.getAbsolutePath());
+                segment.channel.truncate(segment.size);
+            }
+            segment.channel.position(segment.size);
+            segments.addLast(segment);
+            tail = segment;
+            next = Math.max(next, last[0] + 1);
+        }
+        if (!segments.isEmpty())
+            logger.info("Journal " + directory.getAbsolutePath() + " recovered " + (next - recoveredFrom) + " unacknowledged messages");
+        return next;
+    }
+
+    private Segment newSegment(long firstSequence) throws IOException {
+        Segment last = segments.peekLast();
+        if (last != null)
+            last.channel.force(false);
+        File file = new File(directory, String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+        Segment segment = new Segment(file, firstSequence, FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.addLast(segment);
+        tail = segment;
+        return segment;
+    }
+
+    private Message decode(ByteBuffer record) {
+        byte[] subject = new byte[record.getInt()];
+        record.get(subject);
+        byte[] data = new byte[record.remaining()];
+        record.get(data);
+        return new Message(codec.decode(data), new String(subject, StandardCharsets.UTF_8));
+    }
+
+    private interface RecordVisitor {
+        void visit(long sequence, ByteBuffer record);
+    }
+
+    private static class Segment {
+        private final File file;
+        private final long firstSequence;
+        private final FileChannel channel;
+        private long size;
+        private int lastRecordSize;//* Appending side only, used by rollback()
+
+        Segment(File file, long firstSequence, FileChannel channel) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+        }
+
+        /* Visits the valid records from the beginning of the segment, returns the position following the last one */
+        long scan(RecordVisitor visitor) throws IOException {
+            long position = 0;
+            long end = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= end) {
+                header.clear();
+                channel.read(header, position);
+                int payloadSize = header.getInt(0);
+                if (payloadSize < 12 || position + HEADER_SIZE + payloadSize > end)
+                    break;
+                ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+                while (payload.hasRemaining() && channel.read(payload, position + HEADER_SIZE + payload.position()) >= 0) ;
+                CRC32 crc = new CRC32();
+                crc.update(payload.array(), 0, payloadSize);
+                if ((int) crc.getValue() != header.getInt(4))
+                    break;
+                payload.flip();
+                long sequence = payload.getLong();
+                visitor.visit(sequence, payload);
+                position += HEADER_SIZE + payloadSize;
+            }
+            return position;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        void delete() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close journal segment " + file.getAbsolutePath(), e);
+            }
+            if (!file.delete())
+                logger.warn("Failed to delete journal segment " + file.getAbsolutePath());
+        }
+    }
+}
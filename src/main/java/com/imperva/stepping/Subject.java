@@ -2,10 +2,14 @@ package com.imperva.stepping;
 
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class Subject implements ISubject {
-    private volatile ConcurrentHashMap<SubjectKey, List<IStepDecorator>> iSteps = new ConcurrentHashMap<>();
+    private static final Route[] NO_ROUTES = new Route[0];
+
+    //* Immutable snapshot of the distribution routes, one per distribution node ID. Replaced as a whole (copy-on-write)
+    //* on attach so publish() reads it with a single volatile read and iterates it without allocating
+    private volatile Route[] routes = NO_ROUTES;
+    private final Object attachLock = new Object();
     private List<String> stepsObserversNames = new ArrayList<>();
     private volatile String type;
     private volatile Data data;
@@ -37,75 +41,99 @@ public class Subject implements ISubject {
 
     @Override
     public void publish(Data data) {
-        Iterator<Map.Entry<SubjectKey, List<IStepDecorator>>> iterator = iSteps.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<SubjectKey, List<IStepDecorator>> pair = iterator.next();
-            pair.getKey().getiDistributionStrategy().distribute(pair.getValue(), data, this.getType());
+        Route[] current = routes;
+        for (int i = 0; i < current.length; i++) {
+            Route route = current[i];
+            route.iDistributionStrategy.distribute(route.targets, data, this.type);
         }
         this.data = data;
     }
 
     @Override
     public void attach(IStepDecorator step) {
-        stepsObserversNames.add(step.getStep().getId());
         IDistributionStrategy distributionStrategy = step.getDistributionStrategy(type);
 
         if (distributionStrategy == null)
             throw new SteppingException("IDistributionStrategy missing distribution id: " + step.getDistributionNodeID());
-        SubjectKey subjectKey = new SubjectKey(step.getDistributionNodeID(), distributionStrategy);
-        List<IStepDecorator> distributionList = iSteps.get(subjectKey);
-        if (distributionList != null) {
-            distributionList.add(step);
-        } else {
-            List<IStepDecorator> newDistributionList = new ArrayList<>();
-            newDistributionList.add(step);
-            iSteps.put(subjectKey, newDistributionList);
+
+        synchronized (attachLock) {
+            stepsObserversNames.add(step.getStep().getId());
+            Route[] current = routes;
+            String distributionNodeID = step.getDistributionNodeID();
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].distributionNodeID.equals(distributionNodeID)) {
+                    Route[] next = current.clone();
+                    next[i] = current[i].with(step);
+                    routes = next;
+                    return;
+                }
+            }
+            Route[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = new Route(distributionNodeID, distributionStrategy, new IStepDecorator[]{step});
+            routes = next;
+        }
+    }
+
+    @Override
+    public void detach(IStepDecorator step) {
+        synchronized (attachLock) {
+            Route[] current = routes;
+            String distributionNodeID = step.getDistributionNodeID();
+            for (int i = 0; i < current.length; i++) {
+                if (!current[i].distributionNodeID.equals(distributionNodeID) || !current[i].targets.contains(step))
+                    continue;
+                stepsObserversNames.remove(step.getStep().getId());
+                Route route = current[i].without(step);
+                if (route != null) {
+                    Route[] next = current.clone();
+                    next[i] = route;
+                    routes = next;
+                } else {
+                    Route[] next = new Route[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    routes = next;
+                }
+                return;
+            }
         }
     }
 
     List<String> getCopyObserversNames() {
-        return new ArrayList<>(stepsObserversNames);
+        synchronized (attachLock) {
+            return new ArrayList<>(stepsObserversNames);
+        }
     }
 
     String getSubjectType() {
         return type;
     }
 
-    private class SubjectKey {
+    //* The strategy of the first attached node is used for the whole distribution node ID
+    private static class Route {
         private final String distributionNodeID;
         private final IDistributionStrategy iDistributionStrategy;
+        private final List<IStepDecorator> targets;
 
-        public SubjectKey(String distributionNodeID, IDistributionStrategy distributionStrategy) {
+        Route(String distributionNodeID, IDistributionStrategy distributionStrategy, IStepDecorator[] targets) {
             this.distributionNodeID = distributionNodeID;
             this.iDistributionStrategy = distributionStrategy;
+            this.targets = Collections.unmodifiableList(Arrays.asList(targets));
         }
 
-        @Override
-        public boolean equals(Object o) {
-
-            if (o == this) return true;
-            if (!(o instanceof SubjectKey)) {
-                return false;
-            }
-
-            SubjectKey subjectKey = (SubjectKey) o;
-
-            return subjectKey.distributionNodeID.equals(this.distributionNodeID);
-        }
-
-        @Override
-        public int hashCode() {
-            int result = 17;
-            result = 31 * result + this.distributionNodeID.hashCode();
-            return result;
-        }
-
-        public IDistributionStrategy getiDistributionStrategy() {
-            return iDistributionStrategy;
+        Route with(IStepDecorator step) {
+            IStepDecorator[] next = targets.toArray(new IStepDecorator[targets.size() + 1]);
+            next[targets.size()] = step;
+            return new Route(distributionNodeID, iDistributionStrategy, next);
         }
 
-        public String getDistributionNodeID() {
-            return distributionNodeID;
+        //* Null when the step was the last target
+        Route without(IStepDecorator step) {
+            if (targets.size() == 1)
+                return null;
+            List<IStepDecorator> next = new ArrayList<>(targets);
+            next.remove(step);
+            return new Route(distributionNodeID, iDistributionStrategy, next.toArray(new IStepDecorator[0]));
         }
     }
 }
@@ -0,0 +1,57 @@
+package com.imperva.stepping;
+
+/**
+ * A subject as compiled by a single Step when it attaches its subjects. Each route gets a dense id, the Step stamps
+ * it on the Messages it queues so the DataSink dispatches through an array lookup instead of comparing and hashing
+ * subject names. Ids 0 and 1 are reserved for the tick callback and the poison pill.
+ */
+class SubjectRoute {
+    static final int UNRESOLVED = -1;
+    static final int TICK_CALLBACK_ID = 0;
+    static final int POISON_PILL_ID = 1;
+    static final String POISON_PILL = "POISON-PILL";
+    static final String TICK = "TICK";
+
+    enum Kind {DATA, TICK_CALLBACK, POISON_PILL, RETIRE}
+
+    final int id;
+    final String subjectType;
+    final Kind kind;
+    final SubjectUpdateEvent subjectUpdateEvent;
+    final Conflation conflation;
+    final boolean orderInsensitive;//* May be stolen by an idle sibling node
+    final IEnvelopeWriter<Message, Data, String> writer;
+    Conflation.IMarkerQueue markerQueue;//* Set by the Step for conflated routes only
+    boolean fused;//* Set by the Step, delivered on the shouting thread instead of being queued
+
+    SubjectRoute(int id, String subjectType, Kind kind, SubjectUpdateEvent subjectUpdateEvent, Conflation conflation) {
+        this(id, subjectType, kind, subjectUpdateEvent, conflation, false);
+    }
+
+    SubjectRoute(int id, String subjectType, Kind kind, SubjectUpdateEvent subjectUpdateEvent, Conflation conflation, boolean orderInsensitive) {
+        this.id = id;
+        this.subjectType = subjectType;
+        this.kind = kind;
+        this.subjectUpdateEvent = subjectUpdateEvent;
+        this.conflation = conflation;
+        this.orderInsensitive = orderInsensitive;
+        this.writer = Message.writer(id);
+    }
+
+    boolean isControl() {
+        return kind != Kind.DATA;
+    }
+
+    static SubjectRoute tickCallback() {
+        return new SubjectRoute(TICK_CALLBACK_ID, BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name(), Kind.TICK_CALLBACK, null, null);
+    }
+
+    static SubjectRoute poisonPill() {
+        return new SubjectRoute(POISON_PILL_ID, POISON_PILL, Kind.POISON_PILL, null, null);
+    }
+
+    //* Rare enough to be resolved by name, no id is reserved for it
+    static SubjectRoute retire() {
+        return new SubjectRoute(UNRESOLVED, BuiltinSubjectType.STEPPING_RETIRE.name(), Kind.RETIRE, null, null);
+    }
+}
@@ -0,0 +1,50 @@
+package com.imperva.stepping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tick callback counters of a single Step, see ContainerService.getTickMetrics().
+ * A tick is missed when it fires while the previous one is still queued, at most one tick is pending per Step so the
+ * missed tick is coalesced into the pending one. A tick is late when it is delivered to the Step after the next tick was
+ * already due, i.e. its delivery delay exceeds the interval between the last two ticks.
+ */
+public class TickMetrics {
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+    private final AtomicLong late = new AtomicLong();
+    private final AtomicLong maxDelay = new AtomicLong();//* Nanos
+
+    void delivered(long delay, boolean isLate) {
+        delivered.incrementAndGet();
+        if (isLate)
+            late.incrementAndGet();
+        maxDelay.accumulateAndGet(delay, Math::max);
+    }
+
+    void missed() {
+        missed.incrementAndGet();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getMissed() {
+        return missed.get();
+    }
+
+    public long getLate() {
+        return late.get();
+    }
+
+    //* The longest time a tick waited in the Step's control lane
+    public long getMaxDelay(TimeUnit timeUnit) {
+        return timeUnit.convert(maxDelay.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "TickMetrics{delivered=" + getDelivered() + ", missed=" + getMissed() + ", late=" + getLate() + ", maxDelayMillis=" + getMaxDelay(TimeUnit.MILLISECONDS) + "}";
+    }
+}
@@ -0,0 +1,298 @@
+package com.imperva.stepping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed wheel timer shared by all the tick callbacks of an Algo, instead of a single thread scheduler per Step.
+ * A single thread advances the wheel every 'resolution' and hands the expired timeouts to the executor, so a task that
+ * blocks doesn't delay the others. Non-blocking tasks (queueing a Step's tick) run on the wheel thread itself.
+ * Tasks are rescheduled with a fixed delay once they complete, like ScheduledExecutorService.scheduleWithFixedDelay().
+ *
+ * The wheel thread is started on the first scheduled task.
+ */
+class TickTimer implements Closeable {
+    private static final int WHEEL_SIZE = 512;
+    private final Logger logger = LoggerFactory.getLogger(TickTimer.class);
+    private final long resolution;
+    private final Executor executor;
+    private final ThreadFactory threadFactory;
+    private final List<Timeout>[] wheel;//* Accessed by the wheel thread only
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();//* For close()
+    private final long startTime = System.nanoTime();
+    private long tick;
+    private int size;//* Timeouts in the wheel, wheel thread only
+    private Thread worker;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    TickTimer(long resolution, TimeUnit timeUnit, Executor executor, ThreadFactory threadFactory) {
+        if (resolution <= 0)
+            throw new SteppingException("Tick timer resolution must be a positive number");
+        this.resolution = timeUnit.toNanos(resolution);
+        this.executor = executor;
+        this.threadFactory = threadFactory;
+        @SuppressWarnings("unchecked")
+        List<Timeout>[] wheel = (List<Timeout>[]) new List<?>[WHEEL_SIZE];
+        this.wheel = wheel;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    ScheduledFuture<?> scheduleWithFixedDelay(String name, Runnable task, long initialDelay, long delay, TimeUnit timeUnit) {
+        return scheduleWithFixedDelay(name, task, initialDelay, delay, timeUnit, false);
+    }
+
+    //* nonBlocking tasks must never wait, they run on the wheel thread
+    ScheduledFuture<?> scheduleWithFixedDelay(String name, Runnable task, long initialDelay, long delay, TimeUnit timeUnit, boolean nonBlocking) {
+        if (delay <= 0)
+            throw new SteppingException("Tick delay must be a positive number");
+        Timeout timeout = new Timeout(name, task, timeUnit.toNanos(delay), nonBlocking);
+        scheduled.add(timeout);
+        schedule(timeout, timeUnit.toNanos(Math.max(initialDelay, 0)));
+        return timeout;
+    }
+
+    private void schedule(Timeout timeout, long delayNanos) {
+        if (closed)
+            throw new RejectedExecutionException("Tick timer is closed");
+        timeout.deadline = System.nanoTime() + delayNanos;
+        pending.add(timeout);
+        start();
+        if (idle)
+            LockSupport.unpark(worker);
+    }
+
+    private synchronized void start() {
+        if (worker != null || closed)
+            return;
+        Thread thread = threadFactory.newThread(this::run);
+        thread.setDaemon(true);
+        thread.start();
+        worker = thread;
+    }
+
+    private void run() {
+        while (!closed) {
+            long deadline = startTime + (tick + 1) * resolution;
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                if (size == 0)
+                    waitForTimeouts();
+                else
+                    LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            transferPending();
+            expire(wheel[(int) (tick & (WHEEL_SIZE - 1))], deadline);
+            tick++;
+        }
+    }
+
+    //* Nothing to expire, the thread sleeps until a task is scheduled and then skips the idle ticks
+    private void waitForTimeouts() {
+        idle = true;
+        if (pending.isEmpty() && !closed)
+            LockSupport.park(this);
+        idle = false;
+        tick = Math.max(tick, (System.nanoTime() - startTime) / resolution);
+        transferPending();
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled())
+                continue;
+            //* Expired timeouts go to the current bucket, never to a past one
+            long ticks = Math.max((timeout.deadline - startTime) / resolution, tick);
+            timeout.rounds = (ticks - tick) / WHEEL_SIZE;
+            wheel[(int) (ticks & (WHEEL_SIZE - 1))].add(timeout);
+            size++;
+        }
+    }
+
+    private void expire(List<Timeout> bucket, long deadline) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+                size--;
+            } else if (timeout.rounds <= 0 && timeout.deadline <= deadline) {
+                iterator.remove();
+                size--;
+                fire(timeout);
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (timeout.nonBlocking) {
+            timeout.run();
+            return;
+        }
+        try {
+            executor.execute(timeout);
+        } catch (RejectedExecutionException e) {
+            timeout.fail(e);//* Closing
+        }
+    }
+
+    //* Cancels all the tasks and interrupts the running ones
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            timeout.cancel(true);
+        }
+        synchronized (this) {
+            if (worker != null)
+                LockSupport.unpark(worker);
+        }
+        logger.info("Tick timer closed");
+    }
+
+    private class Timeout implements ScheduledFuture<Object>, Runnable {
+        private final String name;
+        private final Runnable task;
+        private final long delay;
+        private final boolean nonBlocking;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile long deadline;
+        private long rounds;//* Wheel thread only
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+        private volatile Thread runner;
+
+        Timeout(String name, Runnable task, long delay, boolean nonBlocking) {
+            this.name = name;
+            this.task = task;
+            this.delay = delay;
+            this.nonBlocking = nonBlocking;
+        }
+
+        @Override
+        public void run() {
+            if (isDone())
+                return;
+            try {
+                if (nonBlocking)
+                    task.run();
+                else
+                    runOnExecutor();
+            } catch (Throwable e) {
+                //* Like ScheduledExecutorService, a failing task is not executed again
+                logger.error("Tick task " + name + " FAILED, it is not rescheduled", e);
+                fail(e);
+                return;
+            }
+            try {
+                if (!isDone())
+                    schedule(this, delay);
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        }
+
+        //* Named after the task while it runs, and interruptible by cancel(true)
+        private void runOnExecutor() {
+            Thread current = Thread.currentThread();
+            String threadName = current.getName();
+            current.setName(name);
+            runner = current;
+            try {
+                task.run();
+            } finally {
+                runner = null;
+                if (cancelled)
+                    Thread.interrupted();//* Don't leak a cancel(true) interrupt to the next pool task
+                current.setName(threadName);
+            }
+        }
+
+        private void fail(Throwable e) {
+            failure = e;
+            scheduled.remove(this);
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone())
+                return false;
+            cancelled = true;
+            scheduled.remove(this);
+            done.countDown();
+            Thread current = runner;
+            if (mayInterruptIfRunning && current != null)
+                current.interrupt();
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled || failure != null;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        //* A periodic task completes only when it is cancelled or fails
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            done.await();
+            return report();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit))
+                throw new TimeoutException();
+            return report();
+        }
+
+        private Object report() throws ExecutionException {
+            if (cancelled)
+                throw new CancellationException();
+            throw new ExecutionException(failure);
+        }
+    }
+}
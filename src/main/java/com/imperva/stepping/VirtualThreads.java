@@ -0,0 +1,52 @@
+package com.imperva.stepping;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the JVM supports them (Java 21+). Stepping is compiled for Java 8, so the
+ * Thread.ofVirtual() builder is looked up reflectively once and only used to create thread factories, never on a hot path.
+ */
+class VirtualThreads {
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class);
+            factory = builder.getMethod("factory");
+            //* Java 19 and 20 have the API as a preview feature, it throws unless the JVM runs with --enable-preview
+            factory.invoke(name.invoke(ofVirtual.invoke(null), "stepping.probe"));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    static ThreadFactory factory(String name) {
+        if (!isSupported())
+            throw new SteppingException("Virtual threads are not supported by this JVM");
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = NAME.invoke(builder, name);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new SteppingException("Virtual thread factory creation FAILED", e);
+        }
+    }
+}
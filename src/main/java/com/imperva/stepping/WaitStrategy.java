@@ -0,0 +1,55 @@
+package com.imperva.stepping;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a Step's thread waits for the next message when its queue is empty.
+ * Anything other than BLOCKING trades CPU for a faster hand-off.
+ */
+public enum WaitStrategy {
+    /* Default. The thread sleeps till a message arrives */
+    BLOCKING {
+        @Override
+        int idle(int idleCount) {
+            throw new SteppingSystemException("BLOCKING wait strategy does not poll");
+        }
+    },
+    /* Never gives up the CPU. Lowest latency, burns a full core per Step */
+    BUSY_SPIN {
+        @Override
+        int idle(int idleCount) {
+            return idleCount;
+        }
+    },
+    /* Spins for a while and then yields the CPU between polls */
+    SPIN_THEN_YIELD {
+        @Override
+        int idle(int idleCount) {
+            if (idleCount >= SPIN_TRIES)
+                Thread.yield();
+            return Math.min(idleCount + 1, SPIN_TRIES);
+        }
+    },
+    /* Spins, yields and then parks for an exponentially growing period (1 micro up to ~1 milli) */
+    TIMED_PARK {
+        @Override
+        int idle(int idleCount) {
+            if (idleCount >= SPIN_TRIES + YIELD_TRIES) {
+                int shift = idleCount - SPIN_TRIES - YIELD_TRIES;
+                LockSupport.parkNanos(MIN_PARK_NANOS << shift);
+                return Math.min(idleCount + 1, SPIN_TRIES + YIELD_TRIES + MAX_PARK_SHIFT);
+            } else if (idleCount >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return idleCount + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long MIN_PARK_NANOS = 1000;
+    private static final int MAX_PARK_SHIFT = 10;
+
+    /* Called after each empty poll, returns the updated idle counter */
+    abstract int idle(int idleCount);
+}
@@ -0,0 +1,300 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+class AlgoDecoratorTest {
+    private static final int TICKS = 100;
+    private static final int MESSAGES_PER_TICK = 20;
+
+    private static final Set<String> processedBy = Collections.synchronizedSet(new HashSet<>());
+    private static final AtomicInteger processed = new AtomicInteger();
+    private static final AtomicInteger killed = new AtomicInteger();
+    private static final AtomicInteger shouted = new AtomicInteger();
+
+    //* Duplicated by the autoscaler through reflection
+    static class Worker implements Step {
+        private String id = "worker";
+
+        @Override
+        public void init(Container cntr, Shouter shouter) {
+        }
+
+        @Override
+        public void onKill() {
+            killed.incrementAndGet();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void listSubjectsToFollow(Follower follower) {
+            follower.follow("work", new LeastLoadedDistributionStrategy());
+        }
+
+        @Override
+        public void onSubjectUpdate(Data data, String subjectType) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processedBy.add(id);
+            processed.incrementAndGet();
+        }
+
+        @Override
+        public StepConfig getConfig() {
+            AutoScaleConfig autoScaleConfig = new AutoScaleConfig();
+            autoScaleConfig.setEnable(true);
+            autoScaleConfig.setMinNodes(1);
+            autoScaleConfig.setMaxNodes(3);
+            autoScaleConfig.setScaleUpQueueDepth(50);
+            autoScaleConfig.setScaleDownQueueDepth(0);
+            autoScaleConfig.setCoolDown(50);
+            autoScaleConfig.setEvaluationInterval(20);
+            StepConfig stepConfig = new StepConfig();
+            stepConfig.setAutoScaleConfig(autoScaleConfig);
+            return stepConfig;
+        }
+    }
+
+    static class KeyedWorker extends Worker {
+        @Override
+        public void listSubjectsToFollow(Follower follower) {
+            follower.follow("work", new KeyPartitionedDistributionStrategy(Data::getValue));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        processedBy.clear();
+        processed.set(0);
+        killed.set(0);
+        shouted.set(0);
+    }
+
+    @Test
+    void autoScale_addsAndRetiresNodes() throws Exception {
+        AlgoDecorator algo = algo(new AlgoConfig(), new Worker());
+        algo.init();
+        try {
+            //* The backlog grows while the source shouts, nodes are added
+            Assertions.assertTrue(await(() -> processed.get() == TICKS * MESSAGES_PER_TICK));
+            Assertions.assertTrue(processedBy.size() > 1);
+
+            //* Then removed once it is drained, the retired nodes are killed and no message is lost or duplicated
+            Assertions.assertTrue(await(() -> killed.get() == processedBy.size() - 1));
+            Assertions.assertEquals(TICKS * MESSAGES_PER_TICK, processed.get());
+        } finally {
+            algo.close();
+        }
+    }
+
+    @Test
+    void autoScale_keyPartitionedRejected() {
+        List<Exception> handled = new CopyOnWriteArrayList<>();
+        AlgoConfig algoConfig = new AlgoConfig();
+        algoConfig.setCustomExceptionHandler((e) -> {
+            handled.add(e);
+            return true;
+        });
+        AlgoDecorator algo = algo(algoConfig, new KeyedWorker());
+        algo.init();
+        algo.close();
+        Assertions.assertEquals(1, handled.size());
+        Assertions.assertTrue(handled.get(0) instanceof IdentifiableSteppingException);
+    }
+
+    @Test
+    void close_drainsQueuedMessages() throws Exception {
+        AlgoConfig algoConfig = new AlgoConfig();
+        algoConfig.setShutdownDrainTimeout(10000);
+        AlgoDecorator algo = algo(algoConfig, sink(1, -1));
+        algo.init();
+        Assertions.assertTrue(await(() -> processed.get() > 0));
+
+        algo.close();
+        //* The source is stopped first, everything it shouted flows through the sink before it is killed
+        Assertions.assertTrue(shouted.get() > 0);
+        Assertions.assertEquals(shouted.get(), processed.get());
+        Assertions.assertEquals(1, killed.get());
+    }
+
+    @Test
+    void close_dropsMessagesPastDeadline() throws Exception {
+        AlgoConfig algoConfig = new AlgoConfig();
+        algoConfig.setShutdownDrainTimeout(100);
+        AlgoDecorator algo = algo(algoConfig, sink(5, -1));
+        algo.init();
+        Assertions.assertTrue(await(() -> shouted.get() >= 200));
+
+        long start = System.currentTimeMillis();
+        algo.close();
+        Assertions.assertTrue(System.currentTimeMillis() - start < 3000);
+        int left = processed.get();
+        Assertions.assertTrue(left < shouted.get());
+        Thread.sleep(100);
+        Assertions.assertEquals(left, processed.get());
+    }
+
+    @Test
+    void close_drainKeepsDelegatingFailures() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        AlgoConfig algoConfig = new AlgoConfig();
+        algoConfig.setShutdownDrainTimeout(10000);
+        algoConfig.setCustomExceptionHandler((e) -> {
+            handled.incrementAndGet();
+            return true;
+        });
+        AlgoDecorator algo = algo(algoConfig, sink(1, 0));
+        algo.init();
+        Assertions.assertTrue(await(() -> processed.get() > 0));
+
+        algo.close();
+        //* A failure while draining is handled as usual, the DataSink is re-opened and keeps draining
+        Assertions.assertTrue(handled.get() > 0);
+        Assertions.assertEquals(shouted.get(), processed.get() + handled.get());
+    }
+
+    private AlgoDecorator algo(AlgoConfig algoConfig, Step... steps) {
+        return new AlgoDecorator(new Algo() {
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public ContainerRegistrar containerRegistration() {
+                ContainerRegistrar containerRegistrar = new ContainerRegistrar();
+                containerRegistrar.add(new Source());
+                for (Step step : steps) {
+                    containerRegistrar.add(step);
+                }
+                return containerRegistrar;
+            }
+
+            @Override
+            public void onTickCallBack() {
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public AlgoConfig getConfig() {
+                return algoConfig;
+            }
+        });
+    }
+
+    //* Takes 'latency' milliseconds per message and fails the messages whose value is 'failing'
+    private Step sink(long latency, int failing) {
+        return new Step() {
+            @Override
+            public void init(Container cntr, Shouter shouter) {
+            }
+
+            @Override
+            public void onKill() {
+                killed.incrementAndGet();
+            }
+
+            @Override
+            public String getId() {
+                return "sink";
+            }
+
+            @Override
+            public void setId(String id) {
+            }
+
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("work");
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (data.getValue().equals(failing))
+                    throw new IllegalStateException("failed");
+                processed.incrementAndGet();
+            }
+        };
+    }
+
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                return false;
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private static class Source implements Step {
+        private Shouter shouter;
+        private int ticks;
+
+        @Override
+        public void init(Container cntr, Shouter shouter) {
+            this.shouter = shouter;
+        }
+
+        @Override
+        public void onKill() {
+        }
+
+        @Override
+        public String getId() {
+            return "source";
+        }
+
+        @Override
+        public void setId(String id) {
+        }
+
+        @Override
+        public void onTickCallBack() {
+            if (ticks++ >= TICKS)
+                return;
+            for (int i = 0; i < MESSAGES_PER_TICK; i++) {
+                shouter.shout("work", i);
+                shouted.incrementAndGet();
+            }
+        }
+
+        @Override
+        public StepConfig getConfig() {
+            StepConfig stepConfig = new StepConfig();
+            stepConfig.setEnableTickCallback(true);
+            stepConfig.setRunningInitialDelay(0);
+            stepConfig.setRunningPeriodicDelay(5);
+            return stepConfig;
+        }
+    }
+}
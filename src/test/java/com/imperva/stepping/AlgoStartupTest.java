@@ -0,0 +1,155 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AlgoStartupTest {
+    private AlgoStartup startup;
+
+    @BeforeEach
+    void setUp() {
+        startup = new AlgoStartup(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        startup.close();
+    }
+
+    @Test
+    void forEachStep_runsGroupsInParallel() throws Exception {
+        List<IStepDecorator> steps = steps("s1", "s2", "s3", "s4");
+        CountDownLatch latch = new CountDownLatch(steps.size());
+        startup.forEachStep("init", steps, (step) -> step.getStep().getId(), (step) -> {
+            latch.countDown();
+            try {
+                //* Completes only if all the Steps run at the same time
+                Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new SteppingSystemException(e);
+            }
+        }, true);
+        Assertions.assertEquals(4, startup.stepReport().size());
+    }
+
+    @Test
+    void forEachStep_runsGroupSequentially() throws Exception {
+        List<IStepDecorator> steps = steps("s.0", "s.1", "s.2");
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        startup.forEachStep("init", steps, (step) -> "s", (step) -> {
+            Assertions.assertEquals(1, running.incrementAndGet());
+            order.add(step.getStep().getId());
+            running.decrementAndGet();
+        }, true);
+        Assertions.assertEquals(Arrays.asList("s.0", "s.1", "s.2"), order);
+    }
+
+    @Test
+    void forEachStep_sequentialRunsOnCallingThread() throws Exception {
+        List<IStepDecorator> steps = steps("s1", "s2", "s3");
+        List<String> order = new ArrayList<>();
+        try (AlgoStartup sequential = new AlgoStartup(1)) {
+            sequential.forEachStep("init", steps, (step) -> step.getStep().getId(), (step) -> {
+                Assertions.assertFalse(Thread.currentThread().getName().startsWith("stepping.startup"));
+                order.add(step.getStep().getId());
+            }, true);
+            //* Failures are left to the action unless failFast
+            sequential.forEachStep("onRestate", steps, (step) -> step.getStep().getId(), (step) -> {
+                order.add(step.getStep().getId());
+                throw new IllegalStateException("restate failed");
+            }, false);
+        }
+        Assertions.assertEquals(Arrays.asList("s1", "s2", "s3", "s1", "s2", "s3"), order);
+    }
+
+    @Test
+    void forEachStep_failFastRethrowsAndSkipsGroup() {
+        List<IStepDecorator> steps = steps("s.0", "s.1");
+        AtomicInteger executed = new AtomicInteger();
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> startup.forEachStep("init", steps, (step) -> "s", (step) -> {
+            executed.incrementAndGet();
+            throw new IllegalStateException("init failed");
+        }, true));
+        Assertions.assertEquals("init failed", e.getMessage());
+        Assertions.assertEquals(1, executed.get());
+    }
+
+    @Test
+    void forEachStep_noFailFastCompletesAll() throws Exception {
+        List<IStepDecorator> steps = steps("s1", "s2", "s3");
+        AtomicInteger executed = new AtomicInteger();
+        startup.forEachStep("onRestate", steps, (step) -> step.getStep().getId(), (step) -> {
+            executed.incrementAndGet();
+            throw new IllegalStateException("restate failed");
+        }, false);
+        Assertions.assertEquals(3, executed.get());
+    }
+
+    @Test
+    void report_listsPhasesAndSlowestSteps() throws Exception {
+        startup.phase("fillContainer", () -> { });
+        startup.forEachStep("init", steps("slow", "fast"), (step) -> step.getStep().getId(), (step) -> {
+            if (step.getStep().getId().equals("slow")) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    throw new SteppingSystemException(e);
+                }
+            }
+        }, true);
+        String report = startup.report();
+        Assertions.assertTrue(report.startsWith("Algo started in "));
+        Assertions.assertTrue(report.contains(" fillContainer="));
+        Assertions.assertTrue(report.contains(" init="));
+        Assertions.assertTrue(report.indexOf("slow.init=") < report.indexOf("fast.init="));
+    }
+
+    private List<IStepDecorator> steps(String... ids) {
+        List<IStepDecorator> steps = new ArrayList<>();
+        for (String id : ids) {
+            steps.add(new StepDecorator(new Step() {
+                @Override
+                public void init(Container cntr, Shouter shouter) {
+                }
+
+                @Override
+                public void onKill() {
+                }
+
+                @Override
+                public String getId() {
+                    return id;
+                }
+
+                @Override
+                public void setId(String id) {
+                }
+
+                @Override
+                public void listSubjectsToFollow(Follower follower) {
+                }
+
+                @Override
+                public void onSubjectUpdate(Data data, String subjectType) {
+                }
+
+                @Override
+                public StepConfig getConfig() {
+                    return new StepConfig();
+                }
+            }));
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,106 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AutoScalerTest {
+
+    private AutoScaleConfig config;
+    private IStepDecorator template;
+
+    @BeforeEach
+    void setUp() {
+        config = new AutoScaleConfig();
+        config.setEnable(true);
+        config.setMinNodes(1);
+        config.setMaxNodes(3);
+        config.setScaleUpQueueDepth(100);
+        config.setScaleDownQueueDepth(10);
+        config.setCoolDown(1000);
+        config.setEvaluationInterval(100);
+        template = mock(IStepDecorator.class);
+        Step step = mock(Step.class);
+        when(step.getId()).thenReturn("step");
+        when(template.getStep()).thenReturn(step);
+    }
+
+    @Test
+    void evaluate_scaleUpWhenBacklogGrows() {
+        AutoScaler autoScaler = autoScaler(1);
+        Assertions.assertEquals(0, autoScaler.evaluate(500, 500));//* Cool down after start
+        Assertions.assertEquals(1, autoScaler.evaluate(600, 1000));
+    }
+
+    @Test
+    void evaluate_noScaleUpWhenBacklogShrinks() {
+        AutoScaler autoScaler = autoScaler(1);
+        autoScaler.evaluate(600, 500);
+        Assertions.assertEquals(0, autoScaler.evaluate(500, 1000));
+    }
+
+    @Test
+    void evaluate_scaleUpUsesAverageDepth() {
+        AutoScaler autoScaler = autoScaler(2);
+        autoScaler.evaluate(150, 500);
+        Assertions.assertEquals(0, autoScaler.evaluate(150, 1000));
+        Assertions.assertEquals(1, autoScaler.evaluate(200, 2000));
+    }
+
+    @Test
+    void evaluate_maxNodes() {
+        AutoScaler autoScaler = autoScaler(3);
+        autoScaler.evaluate(1000, 500);
+        Assertions.assertEquals(0, autoScaler.evaluate(2000, 1000));
+    }
+
+    @Test
+    void evaluate_scaleDown() {
+        AutoScaler autoScaler = autoScaler(2);
+        Assertions.assertEquals(-1, autoScaler.evaluate(20, 1000));
+        Assertions.assertEquals(0, autoScaler.evaluate(0, 1500));//* Cool down
+        autoScaler.retire();
+        Assertions.assertEquals(0, autoScaler.evaluate(0, 2500));//* Min nodes
+    }
+
+    @Test
+    void retire_latestNode() {
+        AutoScaler autoScaler = autoScaler(1);
+        IStepDecorator node = mock(IStepDecorator.class);
+        autoScaler.add(node);
+        Assertions.assertSame(node, autoScaler.retire());
+        Assertions.assertEquals(1, autoScaler.getNodes().size());
+        Assertions.assertSame(template, autoScaler.getNodes().get(0));
+    }
+
+    @Test
+    void collectStopped_afterOneEvaluation() {
+        AutoScaler autoScaler = autoScaler(1);
+        IStepDecorator node = mock(IStepDecorator.class);
+        autoScaler.add(node);
+        autoScaler.retire();
+        Assertions.assertTrue(autoScaler.collectStopped().isEmpty());
+        when(node.isStopped()).thenReturn(true);
+        Assertions.assertTrue(autoScaler.collectStopped().isEmpty());
+        Assertions.assertSame(node, autoScaler.collectStopped().get(0));
+        Assertions.assertTrue(autoScaler.collectStopped().isEmpty());
+    }
+
+    @Test
+    void create_invalidConfig() {
+        config.setMinNodes(4);
+        Assertions.assertThrows(IdentifiableSteppingException.class, () -> new AutoScaler(template, config, 0));
+    }
+
+    private AutoScaler autoScaler(int nodes) {
+        AutoScaler autoScaler = new AutoScaler(template, config, 0);
+        autoScaler.add(template);
+        for (int i = 1; i < nodes; i++) {
+            autoScaler.add(mock(IStepDecorator.class));
+        }
+        return autoScaler;
+    }
+}
@@ -0,0 +1,143 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+class DispatcherTest {
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private final Dispatcher dispatcher = new Dispatcher(2, 4, (e) -> {
+        handled.incrementAndGet();
+        return false;
+    });
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void dispatch_inOrderOnWorkers() throws Exception {
+        int count = 1000;
+        List<Integer> values = new ArrayList<>();
+        List<String> threads = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(count);
+        StepDecorator stepDecorator = dispatchedStep((data) -> {
+            values.add((Integer) data.getValue());
+            threads.add(Thread.currentThread().getName());
+            latch.countDown();
+        });
+
+        for (int i = 0; i < count; i++) {
+            stepDecorator.queueSubjectUpdate(new Data(i), "subject1");
+        }
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, values.get(i).intValue());
+            Assertions.assertTrue(threads.get(i).startsWith("stepping.dispatcher-"));
+        }
+        Assertions.assertFalse(stepDecorator.isDispatchable());
+    }
+
+    @Test
+    void dispatch_manyStepsOnFewWorkers() throws Exception {
+        int steps = 50;
+        CountDownLatch latch = new CountDownLatch(steps * 10);
+        List<StepDecorator> stepDecorators = new ArrayList<>();
+        for (int i = 0; i < steps; i++) {
+            stepDecorators.add(dispatchedStep((data) -> latch.countDown()));
+        }
+        for (int i = 0; i < 10; i++) {
+            for (StepDecorator stepDecorator : stepDecorators) {
+                stepDecorator.queueSubjectUpdate(new Data(i), "subject1");
+            }
+        }
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, dispatcher.getParallelism());
+    }
+
+    @Test
+    void dispatch_unhandledExceptionStopsStep() throws Exception {
+        AtomicInteger processed = new AtomicInteger();
+        StepDecorator stepDecorator = dispatchedStep((data) -> {
+            processed.incrementAndGet();
+            throw new IllegalStateException();
+        });
+
+        stepDecorator.queueSubjectUpdate(new Data(1), "subject1");
+        stepDecorator.queueSubjectUpdate(new Data(2), "subject1");
+        Thread.sleep(200);
+        stepDecorator.queueSubjectUpdate(new Data(3), "subject1");
+        Thread.sleep(200);
+
+        Assertions.assertEquals(1, processed.get());
+        Assertions.assertEquals(1, handled.get());
+    }
+
+    @Test
+    void dispatch_poisonPill() throws Exception {
+        AtomicInteger processed = new AtomicInteger();
+        StepDecorator stepDecorator = dispatchedStep((data) -> processed.incrementAndGet());
+
+        stepDecorator.queueControl(new Data("cyanide"), "POISON-PILL");
+        Thread.sleep(200);
+        stepDecorator.queueSubjectUpdate(new Data(1), "subject1");
+        Thread.sleep(200);
+
+        Assertions.assertTrue(stepDecorator.dead);
+        Assertions.assertEquals(0, processed.get());
+        Assertions.assertEquals(0, handled.get());
+    }
+
+    @Test
+    void setDispatcher_consumerGroupRejected() {
+        StepDecorator stepDecorator = new StepDecorator(new Step() {
+            @Override
+            public void init(Container cntr, Shouter shouter) {
+            }
+
+            @Override
+            public void onKill() {
+            }
+        });
+        stepDecorator.setConsumerGroup(new ConsumerGroupQ<>(0));
+        stepDecorator.init(new ContainerDefaultImpl(), null);
+        Assertions.assertThrows(IdentifiableSteppingException.class, () -> stepDecorator.setDispatcher(dispatcher));
+    }
+
+    private StepDecorator dispatchedStep(Consumer<Data> onSubjectUpdate) {
+        StepDecorator stepDecorator = new StepDecorator(new Step() {
+            @Override
+            public void init(Container cntr, Shouter shouter) {
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                onSubjectUpdate.accept(data);
+            }
+
+            @Override
+            public void onKill() {
+            }
+
+            @Override
+            public StepConfig getConfig() {
+                StepConfig stepConfig = new StepConfig();
+                stepConfig.setBoundQueueCapacity(16);
+                return stepConfig;
+            }
+        });
+        stepDecorator.init(new ContainerDefaultImpl(), null);
+        stepDecorator.setDispatcher(dispatcher);
+        return stepDecorator;
+    }
+}
@@ -0,0 +1,101 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.imperva.stepping.NodeStep.nodes;
+
+class EvenDistributionStrategyTest {
+
+    @Test
+    void distribute_listViews() {
+        List<IStepDecorator> nodes = nodes(3);
+        List<Integer> items = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        new EvenDistributionStrategy().distribute(nodes, new Data(items), "subject1");
+
+        List<Object> chunks = chunks(nodes);
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), chunks.get(0));
+        Assertions.assertEquals(Arrays.asList(3, 4, 5), chunks.get(1));
+        Assertions.assertEquals(Arrays.asList(6, 7, 8, 9), chunks.get(2));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> ((List<Object>) chunks.get(0)).add(10));
+    }
+
+    @Test
+    void distribute_objectArray() {
+        List<IStepDecorator> nodes = nodes(2);
+
+        new EvenDistributionStrategy().distribute(nodes, new Data(new String[]{"a", "b", "c"}), "subject1");
+
+        List<Object> chunks = chunks(nodes);
+        Assertions.assertEquals(Arrays.asList("a"), chunks.get(0));
+        Assertions.assertEquals(Arrays.asList("b", "c"), chunks.get(1));
+    }
+
+    @Test
+    void distribute_primitiveArray() {
+        List<IStepDecorator> nodes = nodes(2);
+        int[] items = {1, 2, 3, 4};
+
+        new EvenDistributionStrategy().distribute(nodes, new Data(items), "subject1");
+
+        List<Object> chunks = chunks(nodes);
+        ArraySlice second = (ArraySlice) chunks.get(1);
+        Assertions.assertSame(items, second.getArray());
+        Assertions.assertEquals(2, second.getFrom());
+        Assertions.assertEquals(4, second.getTo());
+        Assertions.assertEquals(3, second.get(0));
+    }
+
+    @Test
+    void distribute_splittable() {
+        List<IStepDecorator> nodes = nodes(2);
+        ISplittable splittable = new ISplittable() {
+            @Override
+            public int size() {
+                return 6;
+            }
+
+            @Override
+            public Object slice(int from, int to) {
+                return from + "-" + to;
+            }
+        };
+
+        new EvenDistributionStrategy().distribute(nodes, new Data(splittable), "subject1");
+
+        Assertions.assertEquals(Arrays.asList("0-3", "3-6"), chunks(nodes));
+    }
+
+    @Test
+    void distribute_fewerItemsThanNodes() {
+        List<IStepDecorator> nodes = nodes(3);
+
+        new EvenDistributionStrategy().distribute(nodes, new Data(Arrays.asList("a")), "subject1");
+
+        Assertions.assertEquals(0, nodes.get(0).getQSize());
+        Assertions.assertEquals(0, nodes.get(1).getQSize());
+        Assertions.assertEquals(1, nodes.get(2).getQSize());
+    }
+
+    @Test
+    void distribute_notSupported() {
+        Assertions.assertThrows(SteppingException.class, () -> new EvenDistributionStrategy().distribute(nodes(2), new Data("value"), "subject1"));
+    }
+
+    private List<Object> chunks(List<IStepDecorator> nodes) {
+        List<Object> chunks = new ArrayList<>();
+        for (IStepDecorator node : nodes) {
+            List<Message> messages = new ArrayList<>();
+            ((StepDecorator) node).q.drainTo(messages, Integer.MAX_VALUE);
+            for (Message message : messages) {
+                chunks.add(message.getData().getValue());
+            }
+        }
+        return chunks;
+    }
+}
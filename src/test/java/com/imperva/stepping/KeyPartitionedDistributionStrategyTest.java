@@ -0,0 +1,101 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.imperva.stepping.NodeStep.nodes;
+
+class KeyPartitionedDistributionStrategyTest {
+    private static final int KEYS = 1000;
+
+    @Test
+    void distribute_sameKeySameNode() {
+        List<IStepDecorator> nodes = nodes(3);
+        KeyPartitionedDistributionStrategy strategy = new KeyPartitionedDistributionStrategy((data) -> data.getValue());
+
+        for (int round = 0; round < 2; round++) {
+            for (int key = 0; key < KEYS; key++) {
+                strategy.distribute(nodes, new Data(key), "subject1");
+            }
+        }
+
+        Map<Object, String> owners = owners(nodes);
+        Assertions.assertEquals(KEYS, owners.size());
+        //* Every node owns a fair share of the keys
+        for (IStepDecorator node : nodes) {
+            Assertions.assertTrue(owners.values().stream().filter(node.getStep().getId()::equals).count() > KEYS / 6);
+        }
+    }
+
+    @Test
+    void distribute_addedNodeMovesOnlyItsKeys() {
+        KeyPartitionedDistributionStrategy strategy = new KeyPartitionedDistributionStrategy((data) -> data.getValue());
+        List<IStepDecorator> nodes = nodes(3);
+        for (int key = 0; key < KEYS; key++) {
+            strategy.distribute(nodes, new Data(key), "subject1");
+        }
+        Map<Object, String> before = owners(nodes);
+
+        nodes = nodes(4);
+        for (int key = 0; key < KEYS; key++) {
+            strategy.distribute(nodes, new Data(key), "subject1");
+        }
+        Map<Object, String> after = owners(nodes);
+
+        int moved = 0;
+        for (int key = 0; key < KEYS; key++) {
+            if (!before.get(key).equals(after.get(key))) {
+                Assertions.assertEquals("step.3", after.get(key));
+                moved++;
+            }
+        }
+        Assertions.assertTrue(moved > 0 && moved < KEYS / 2);
+    }
+
+    @Test
+    void distribute_ringCachedPerSubject() {
+        KeyPartitionedDistributionStrategy strategy = new KeyPartitionedDistributionStrategy((data) -> data.getValue());
+        List<IStepDecorator> subject1Nodes = nodes(3);
+        List<IStepDecorator> subject2Nodes = nodes(3);
+        for (int key = 0; key < KEYS; key++) {
+            strategy.distribute(subject1Nodes, new Data(key), "subject1");
+            strategy.distribute(subject2Nodes, new Data(key), "subject2");
+        }
+        Assertions.assertEquals(2, strategy.rings.length);
+        Map<Object, String> owners1 = owners(subject1Nodes);
+        Map<Object, String> owners2 = owners(subject2Nodes);
+        Assertions.assertEquals(owners1, owners2);
+    }
+
+    @Test
+    void distribute_nullKey() {
+        KeyPartitionedDistributionStrategy strategy = new KeyPartitionedDistributionStrategy((data) -> null);
+        Assertions.assertThrows(SteppingException.class, () -> strategy.distribute(nodes(2), new Data("value"), "subject1"));
+    }
+
+    @Test
+    void keyPartitioned_invalidArguments() {
+        Assertions.assertThrows(SteppingException.class, () -> new KeyPartitionedDistributionStrategy(null));
+        Assertions.assertThrows(SteppingException.class, () -> new KeyPartitionedDistributionStrategy((data) -> data, 0));
+    }
+
+    //* Drains the nodes' queues, failing if a key reached more than one node
+    private Map<Object, String> owners(List<IStepDecorator> nodes) {
+        Map<Object, String> owners = new HashMap<>();
+        for (IStepDecorator node : nodes) {
+            List<Message> messages = new ArrayList<>();
+            ((StepDecorator) node).q.drainTo(messages, Integer.MAX_VALUE);
+            for (Message message : messages) {
+                String previous = owners.put(message.getData().getValue(), node.getStep().getId());
+                if (previous != null)
+                    Assertions.assertEquals(previous, node.getStep().getId());
+            }
+        }
+        return owners;
+    }
+}
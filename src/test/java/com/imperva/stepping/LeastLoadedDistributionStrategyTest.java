@@ -0,0 +1,48 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.imperva.stepping.NodeStep.nodes;
+
+class LeastLoadedDistributionStrategyTest {
+
+    @Test
+    void distribute_toShorterQueue() {
+        List<IStepDecorator> nodes = nodes(2);
+        for (int inc = 0; inc < 5; inc++) {
+            nodes.get(0).queueSubjectUpdate(new Data(inc), "subject1");
+        }
+        LeastLoadedDistributionStrategy strategy = new LeastLoadedDistributionStrategy();
+
+        for (int inc = 0; inc < 4; inc++) {
+            strategy.distribute(nodes, new Data(inc), "subject1");
+        }
+
+        Assertions.assertEquals(5, nodes.get(0).getQSize());
+        Assertions.assertEquals(4, nodes.get(1).getQSize());
+    }
+
+    @Test
+    void distribute_balancesNodes() {
+        List<IStepDecorator> nodes = nodes(4);
+        LeastLoadedDistributionStrategy strategy = new LeastLoadedDistributionStrategy();
+
+        for (int inc = 0; inc < 400; inc++) {
+            strategy.distribute(nodes, new Data(inc), "subject1");
+        }
+
+        //* With two choices the longest queue stays within a few items of the average
+        for (IStepDecorator node : nodes) {
+            Assertions.assertTrue(Math.abs(node.getQSize() - 100) <= 5);
+            Assertions.assertEquals(node.getQSize(), node.getApproximateQSize());
+        }
+    }
+
+    @Test
+    void leastLoaded_invalidChoices() {
+        Assertions.assertThrows(SteppingException.class, () -> new LeastLoadedDistributionStrategy(0));
+    }
+}
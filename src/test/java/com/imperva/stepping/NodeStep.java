@@ -0,0 +1,38 @@
+package com.imperva.stepping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A no-op Step for the distribution strategies' tests, nodes() creates initialized nodes named like Duplicated Nodes
+ */
+class NodeStep implements Step {
+    private final String id;
+
+    NodeStep(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public void init(Container cntr, Shouter shouter) {
+    }
+
+    @Override
+    public void onKill() {
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    static List<IStepDecorator> nodes(int numOfNodes) {
+        List<IStepDecorator> nodes = new ArrayList<>();
+        for (int inc = 0; inc < numOfNodes; inc++) {
+            StepDecorator decorator = new StepDecorator(new NodeStep(inc == 0 ? "step" : "step." + inc));
+            decorator.init(new ContainerDefaultImpl(), null);
+            nodes.add(decorator);
+        }
+        return nodes;
+    }
+}
@@ -3,6 +3,15 @@ package com.imperva.stepping;
 import org.junit.Assert;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Author: Linda Nasredin
@@ -105,4 +114,425 @@ class QTest {
         Assertions.assertFalse(offered2);
     }
 
-}
\ No newline at end of file
+    @Test
+    void ringBuffer_capacityRoundedToPowerOfTwo() {
+        Assertions.assertEquals(16, new Q<>(10, QueueType.SPSC_RING_BUFFER).getCapacity());
+        Assertions.assertEquals(16, new Q<>(16, QueueType.MPSC_RING_BUFFER).getCapacity());
+    }
+
+    @Test
+    void ringBuffer_zeroCapacity() {
+        Assertions.assertThrows(SteppingException.class, () -> new Q<>(0, QueueType.MPSC_RING_BUFFER));
+    }
+
+    @Test
+    void mpscRingBuffer_singleSlotRejected() {
+        Assertions.assertThrows(SteppingException.class, () -> new Q<>(1, QueueType.MPSC_RING_BUFFER));
+        Assertions.assertEquals(1, new Q<>(1, QueueType.SPSC_RING_BUFFER).getCapacity());
+    }
+
+    @Test
+    void ringBuffer_offer() {
+        Q<String> q = new Q<>(2, QueueType.MPSC_RING_BUFFER);
+        Assertions.assertTrue(q.offer("item1"));
+        Assertions.assertTrue(q.offer("item2"));
+        Assertions.assertFalse(q.offer("item3"));
+        Assertions.assertEquals(2, q.size());
+    }
+
+    @Test
+    void ringBuffer_nullItem() {
+        Q<String> q = new Q<>(2, QueueType.SPSC_RING_BUFFER);
+        Assertions.assertThrows(SteppingSystemException.class, () -> q.queue(null));
+    }
+
+    @Test
+    void ringBuffer_clear() throws InterruptedException {
+        Q<String> q = new Q<>(4, QueueType.MPSC_RING_BUFFER);
+        q.queue("item1");
+        q.queue("item2");
+        q.clear();
+        Assertions.assertEquals(0, q.size());
+        q.queue("item3");
+        Assertions.assertEquals("item3", q.take());
+    }
+
+    @Test
+    void ringBuffer_peek_skipsClearedItems() throws InterruptedException {
+        for (QueueType queueType : Arrays.asList(QueueType.SPSC_RING_BUFFER, QueueType.MPSC_RING_BUFFER)) {
+            Q<String> q = new Q<>(4, queueType);
+            q.queue("item1");
+            q.queue("item2");
+            q.clear();
+            Assertions.assertNull(q.peek());
+            q.queue("item3");
+            q.queue("item4");
+            Assertions.assertEquals("item3", q.peek());
+            Assertions.assertEquals("item3", q.take());
+            Assertions.assertEquals("item4", q.peek());
+        }
+    }
+
+    @Test
+    void ringBuffer_take_wait() throws InterruptedException {
+        Q<String> q = new Q<>(2, QueueType.SPSC_RING_BUFFER);
+        Runnable runnable = () -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            q.queue("item1");
+        };
+        new Thread(runnable).start();
+
+        Assertions.assertEquals("item1", q.take());
+        Assertions.assertEquals(0, q.size());
+    }
+
+    @Test
+    void mpscRingBuffer_multipleProducers_keepPerProducerOrder() throws InterruptedException {
+        Q<int[]> q = new Q<>(64, QueueType.MPSC_RING_BUFFER);
+        int producers = 4;
+        int itemsPerProducer = 10000;
+        for (int p = 0; p < producers; p++) {
+            int producerId = p;
+            new Thread(() -> {
+                for (int i = 0; i < itemsPerProducer; i++) {
+                    q.queue(new int[]{producerId, i});
+                }
+            }).start();
+        }
+
+        int[] lastSeen = new int[]{-1, -1, -1, -1};
+        for (int inc = 0; inc < producers * itemsPerProducer; inc++) {
+            int[] item = q.take();
+            Assertions.assertEquals(lastSeen[item[0]] + 1, item[1]);
+            lastSeen[item[0]] = item[1];
+        }
+        Assertions.assertEquals(0, q.size());
+    }
+
+    @Test
+    void waitStrategy_nonBlockingTake() throws InterruptedException {
+        for (WaitStrategy waitStrategy : new WaitStrategy[]{WaitStrategy.BUSY_SPIN, WaitStrategy.SPIN_THEN_YIELD, WaitStrategy.TIMED_PARK}) {
+            Q<String> q = new Q<>(2, QueueType.BLOCKING, waitStrategy);
+            new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                q.queue("item1");
+            }).start();
+
+            Assertions.assertEquals("item1", q.take());
+        }
+    }
+
+    @Test
+    void waitStrategy_interrupt() throws InterruptedException {
+        Q<String> q = new Q<>(2, QueueType.MPSC_RING_BUFFER, WaitStrategy.TIMED_PARK);
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        Thread thread = new Thread(() -> {
+            try {
+                q.take();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        thread.start();
+        thread.interrupt();
+        thread.join(Consts.WAIT_TIMEOUT_MILLIS);
+        Assertions.assertTrue(interrupted.get());
+    }
+
+    @Test
+    void ringBuffer_envelopesAreReused() throws InterruptedException {
+        Q<Message> q = new Q<>(2, QueueType.MPSC_RING_BUFFER, WaitStrategy.BLOCKING, Message::new);
+        Data data1 = new Data("value1");
+        Data data2 = new Data("value2");
+
+        q.queue(Message.WRITER, data1, "subject1");
+        Message first = q.take();
+        Assertions.assertSame(data1, first.getData());
+        q.release();
+
+        q.queue(Message.WRITER, data2, "subject2");
+        q.queue(Message.WRITER, data2, "subject2");
+        Message second = q.take();
+        q.take();
+        q.release();
+
+        q.queue(Message.WRITER, data1, "subject3");
+        Assertions.assertSame(second, q.take());
+        Assertions.assertEquals("subject3", second.getSubjectType());
+        Assertions.assertNotSame(first, second);
+    }
+
+    @Test
+    void ringBuffer_envelopesNotReleased() throws InterruptedException {
+        Q<Message> q = new Q<>(1, QueueType.SPSC_RING_BUFFER, WaitStrategy.BLOCKING, Message::new);
+        q.queue(Message.WRITER, new Data("value"), "subject1");
+        q.take();
+        Assertions.assertFalse(q.offer(Message.WRITER, new Data("value"), "subject1"));
+        q.release();
+        Assertions.assertTrue(q.offer(Message.WRITER, new Data("value"), "subject1"));
+    }
+
+    @Test
+    void ringBuffer_blockedProducerWokenUpByConsumer() throws InterruptedException {
+        for (QueueType queueType : new QueueType[]{QueueType.SPSC_RING_BUFFER, QueueType.MPSC_RING_BUFFER}) {
+            Q<String> q = new Q<>(2, queueType);
+            q.queue("value1");
+            q.queue("value2");
+            Thread producer = new Thread(() -> q.queue("value3"));
+            producer.start();
+            Thread.sleep(50);
+            Assertions.assertTrue(producer.isAlive());
+
+            Assertions.assertEquals("value1", q.take());
+            producer.join(Consts.WAIT_TIMEOUT_MILLIS);
+
+            Assertions.assertFalse(producer.isAlive());
+            Assertions.assertEquals("value2", q.take());
+            Assertions.assertEquals("value3", q.take());
+        }
+    }
+
+    @Test
+    void approximateSize() throws InterruptedException {
+        for (QueueType queueType : QueueType.values()) {
+            Q<String> q = new Q<>(4, queueType);
+            q.queue("value1");
+            q.queue("value2");
+            Assertions.assertTrue(q.offer("value3"));
+            Assertions.assertEquals(3, q.approximateSize());
+
+            q.take();
+            q.release();
+            Assertions.assertEquals(2, q.approximateSize());
+
+            q.clear();
+            Assertions.assertEquals(0, q.approximateSize());
+            q.queue("value4");
+            Assertions.assertEquals(1, q.approximateSize());
+        }
+    }
+
+    @Test
+    void blocking_stealSkipsOrderSensitiveItems() {
+        BlockingDequeQ<String> queue = new BlockingDequeQ<>(0);
+        queue.offer("free1");
+        queue.offer("free2");
+        queue.offer("ordered1");
+
+        Assertions.assertEquals("free2", queue.steal((item) -> item.startsWith("free"), 16));
+        //* Nothing to steal next to the tail, falls back to the head
+        Assertions.assertEquals("free1", queue.steal((item) -> item.startsWith("free"), 1));
+        Assertions.assertNull(queue.steal((item) -> item.startsWith("free"), 16));
+        Assertions.assertEquals(1, queue.approximateSize());
+        Assertions.assertEquals("ordered1", queue.poll());
+        Assertions.assertEquals(0, queue.approximateSize());
+    }
+
+    @Test
+    void take_timeout() throws InterruptedException {
+        for (QueueType queueType : QueueType.values()) {
+            Q<String> q = new Q<>(2, queueType);
+            Assertions.assertNull(q.take(10, TimeUnit.MILLISECONDS));
+            q.queue("value");
+            q.queueControl("control");
+            Assertions.assertEquals("control", q.take(10, TimeUnit.MILLISECONDS));
+            String value = q.take(10, TimeUnit.MILLISECONDS);
+            //* A signalled take may return null once
+            Assertions.assertEquals("value", value != null ? value : q.take(10, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void consumerGroup_membersShareOneQueue() throws InterruptedException {
+        ConsumerGroupQ<String> group = new ConsumerGroupQ<>(2);
+        Q<String> node1 = new Q<>(group.member(), WaitStrategy.BLOCKING);
+        Q<String> node2 = new Q<>(group.member(), WaitStrategy.BLOCKING);
+
+        node1.queue("value1");
+        node1.queue("value2");
+        Assertions.assertFalse(node2.offer("value3"));
+        Assertions.assertEquals(2, node2.size());
+
+        Assertions.assertEquals("value1", node2.take());
+        Assertions.assertEquals("value2", node1.take());
+        Assertions.assertEquals(0, node1.size());
+    }
+
+    @Test
+    void consumerGroup_controlReachesItsNode() throws InterruptedException {
+        ConsumerGroupQ<String> group = new ConsumerGroupQ<>(0);
+        Q<String> node1 = new Q<>(group.member(), WaitStrategy.BLOCKING);
+        Q<String> node2 = new Q<>(group.member(), WaitStrategy.BLOCKING);
+        List<String> taken = new CopyOnWriteArrayList<>();
+        Thread consumer1 = new Thread(() -> {
+            try {
+                taken.add(node1.take());
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        consumer1.start();
+        Thread.sleep(50);
+
+        node2.queueControl("control2");
+        Assertions.assertEquals("control2", node2.take());
+        node1.queueControl("control1");
+        consumer1.join(Consts.WAIT_TIMEOUT_MILLIS);
+
+        Assertions.assertEquals(Arrays.asList("control1"), taken);
+    }
+
+    @Test
+    void blocking_envelopesNotSupported() {
+        Assertions.assertThrows(SteppingException.class, () -> new Q<>(1, QueueType.BLOCKING, WaitStrategy.BLOCKING, Message::new));
+    }
+
+    @Test
+    void queueControl_takenBeforeData() throws InterruptedException {
+        for (QueueType queueType : QueueType.values()) {
+            Q<String> q = new Q<>(2, queueType);
+            q.queue("value1");
+            q.queue("value2");
+
+            q.queueControl("control");
+
+            Assertions.assertEquals(2, q.size());
+            Assertions.assertEquals("control", q.take());
+            Assertions.assertEquals("value1", q.take());
+        }
+    }
+
+    @Test
+    void queueControl_wakesBlockedTake() throws InterruptedException {
+        for (QueueType queueType : QueueType.values()) {
+            Q<String> q = new Q<>(2, queueType);
+            List<String> taken = new CopyOnWriteArrayList<>();
+            Thread consumer = new Thread(() -> {
+                try {
+                    taken.add(q.take());
+                    taken.add(q.take());
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            consumer.start();
+            Thread.sleep(100);
+
+            q.queueControl("control");
+            q.queue("value");
+            consumer.join(Consts.WAIT_TIMEOUT_MILLIS);
+
+            Assertions.assertEquals(Arrays.asList("control", "value"), taken);
+            Assertions.assertEquals(0, q.size());
+        }
+    }
+
+    @Test
+    void spillOver_keepsOrderAndDoesNotBlock(@TempDir File directory) throws InterruptedException {
+        SpillOverQ spillOverQ = new SpillOverQ(Q.createQueue(2, QueueType.BLOCKING, null), new StringDataCodec(), directory, 64);
+        Q<Message> q = new Q<>(spillOverQ, WaitStrategy.BLOCKING);
+
+        for (int i = 0; i < 20; i++) {
+            q.queue(Message.WRITER, new Data("value" + i), "subject");
+        }
+        Assertions.assertEquals(20, q.size());
+        Assertions.assertEquals(18, spillOverQ.spilledSize());
+        Assertions.assertTrue(directory.list().length > 0);
+
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals("value" + i, q.take().getData().getValue());
+        }
+        Assertions.assertEquals(0, q.size());
+
+        q.queue(Message.WRITER, new Data("value"), "subject");
+        Assertions.assertEquals(0, spillOverQ.spilledSize());
+        Assertions.assertEquals("value", q.take().getData().getValue());
+    }
+
+    @Test
+    void spillOver_controlMessagesStayOnHeap(@TempDir File directory) throws InterruptedException {
+        Q<Message> q = new Q<>(new SpillOverQ(Q.createQueue(1, QueueType.BLOCKING, null), new StringDataCodec(), directory, 1024), WaitStrategy.BLOCKING);
+        Data pill = new Data("POISON-PILL");
+
+        q.queue(Message.WRITER, new Data("value"), "subject");
+        q.queue(Message.WRITER, pill, "POISON-PILL");
+
+        Assertions.assertEquals("value", q.take().getData().getValue());
+        Assertions.assertSame(pill, q.take().getData());
+    }
+
+    @Test
+    void spillOver_conflationMarkersStayOnHeap(@TempDir File directory) throws InterruptedException {
+        Q<Message> q = new Q<>(new SpillOverQ(Q.createQueue(1, QueueType.BLOCKING, null), new StringDataCodec(), directory, 1024), WaitStrategy.BLOCKING);
+        Conflation conflation = new Conflation("subject", (data) -> data.getValue());
+        Conflation.IMarkerQueue markerQueue = (marker, subjectType, blocking) -> {
+            q.queue(Message.WRITER, marker, subjectType);
+            return true;
+        };
+
+        conflation.publish(new Data("key1"), markerQueue, true);
+        conflation.publish(new Data("key2"), markerQueue, true);
+
+        Assertions.assertEquals("key1", Conflation.take(q.take().getData()).getValue());
+        Assertions.assertEquals("key2", Conflation.take(q.take().getData()).getValue());
+    }
+
+    @Test
+    void spillOver_consumerWokenUpBySlowSpill(@TempDir File directory) throws InterruptedException {
+        CountDownLatch encoding = new CountDownLatch(1);
+        CountDownLatch encode = new CountDownLatch(1);
+        IDataCodec slowCodec = new StringDataCodec() {
+            @Override
+            public byte[] encode(Data data) {
+                encoding.countDown();
+                try {
+                    encode.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new SteppingSystemException(e);
+                }
+                return super.encode(data);
+            }
+        };
+        Q<Message> q = new Q<>(new SpillOverQ(Q.createQueue(1, QueueType.BLOCKING, null), slowCodec, directory, 1024), WaitStrategy.BLOCKING);
+        q.queue(Message.WRITER, new Data("value1"), "subject");
+        new Thread(() -> q.queue(Message.WRITER, new Data("value2"), "subject")).start();
+        Assertions.assertTrue(encoding.await(5, TimeUnit.SECONDS));
+
+        //* The consumer drains memory and blocks while value2 is being spilled
+        List<Object> values = new CopyOnWriteArrayList<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                values.add(q.take().getData().getValue());
+                values.add(q.take().getData().getValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        Thread.sleep(100);
+        encode.countDown();
+
+        consumer.join(5000);
+        consumer.interrupt();
+        Assertions.assertEquals(Arrays.asList("value1", "value2"), values);
+    }
+
+    @Test
+    void spillOver_clear(@TempDir File directory) {
+        Q<Message> q = new Q<>(new SpillOverQ(Q.createQueue(1, QueueType.BLOCKING, null), new StringDataCodec(), directory, 1024), WaitStrategy.BLOCKING);
+        q.queue(Message.WRITER, new Data("value1"), "subject");
+        q.queue(Message.WRITER, new Data("value2"), "subject");
+
+        q.clear();
+        Assertions.assertEquals(0, q.size());
+        Assertions.assertEquals(0, directory.list().length);
+    }
+}
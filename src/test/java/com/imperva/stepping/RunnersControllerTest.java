@@ -0,0 +1,44 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class RunnersControllerTest {
+
+    @Test
+    void platformThreads() throws Exception {
+        RunnersController runnersController = new RunnersController(ExecutionMode.PLATFORM_THREADS);
+        Future<Boolean> virtual = runnersController.getExecutorService().submit(() -> isVirtual(Thread.currentThread()));
+        Assertions.assertFalse(virtual.get(5, TimeUnit.SECONDS));
+        runnersController.kill();
+    }
+
+    @Test
+    void virtualThreads_fallBackWhenNotSupported() throws Exception {
+        RunnersController runnersController = new RunnersController(ExecutionMode.VIRTUAL_THREADS);
+        Assertions.assertEquals(VirtualThreads.isSupported() ? ExecutionMode.VIRTUAL_THREADS : ExecutionMode.PLATFORM_THREADS, runnersController.getExecutionMode());
+        Future<Boolean> virtual = runnersController.getExecutorService().submit(() -> isVirtual(Thread.currentThread()));
+        Assertions.assertEquals(VirtualThreads.isSupported(), virtual.get(5, TimeUnit.SECONDS));
+        runnersController.kill();
+    }
+
+    @Test
+    void newThreadFactory() {
+        RunnersController runnersController = new RunnersController(ExecutionMode.VIRTUAL_THREADS);
+        Thread thread = runnersController.newThreadFactory("step1.runningScheduled").newThread(() -> { });
+        Assertions.assertEquals("step1.runningScheduled", thread.getName());
+        Assertions.assertEquals(VirtualThreads.isSupported(), isVirtual(thread));
+        runnersController.kill();
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.imperva.stepping;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ShoutPublisherTest {
+
+    @Test
+    void submit_keepsOrder() throws Exception {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 4);
+        List<Integer> published = new ArrayList<>();
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < 1000; i++) {
+            int value = i;
+            last = shoutPublisher.submit("step", () -> published.add(value));
+        }
+        last.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1000, published.size());
+        for (int i = 0; i < 1000; i++)
+            Assert.assertEquals(i, published.get(i).intValue());
+        shoutPublisher.close();
+    }
+
+    @Test
+    void submit_blocksWhenMaxInFlightReached() throws Exception {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = shoutPublisher.submit("step", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        AtomicBoolean submitted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            shoutPublisher.submit("step", () -> { });
+            submitted.set(true);
+        });
+        producer.start();
+        producer.join(200);
+        Assert.assertFalse(submitted.get());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        producer.join(5000);
+        Assert.assertTrue(submitted.get());
+        shoutPublisher.close();
+    }
+
+    @Test
+    void submit_busyStepDoesNotStallOthers() throws Exception {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocked = shoutPublisher.submit("step", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread producer = new Thread(() -> shoutPublisher.submit("step", () -> { }));
+        producer.start();
+
+        //* Another Step's shouts are distributed while the first one's followers are full
+        shoutPublisher.submit("other", () -> { }).get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(blocked.isDone());
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        producer.join(5000);
+        shoutPublisher.close();
+    }
+
+    @Test
+    void submit_failedPublication() throws Exception {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 1);
+        CompletableFuture<Void> future = shoutPublisher.submit("step", () -> {
+            throw new IllegalStateException();
+        });
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        //* The permit is released on failure
+        shoutPublisher.submit("step", () -> { }).get(5, TimeUnit.SECONDS);
+        shoutPublisher.close();
+    }
+
+    @Test
+    void isIdle_untilPublicationsComplete() throws Exception {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 4);
+        Assert.assertTrue(shoutPublisher.isIdle());
+        CountDownLatch release = new CountDownLatch(1);
+        shoutPublisher.submit("step", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertFalse(shoutPublisher.isIdle());
+        release.countDown();
+        //* The permit is released right after the future completes
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!shoutPublisher.isIdle() && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        Assert.assertTrue(shoutPublisher.isIdle());
+        shoutPublisher.close();
+    }
+
+    @Test
+    void close_completesInFlightAndCancelsQueued() throws Exception {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 4);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CompletableFuture<Void> inFlight = shoutPublisher.submit("step", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        CompletableFuture<Void> queued = shoutPublisher.submit("step", () -> { });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        shoutPublisher.close();
+        inFlight.get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(interrupted.get());
+        Assert.assertTrue(queued.isCompletedExceptionally());
+    }
+
+    @Test
+    void submit_afterClose() {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 1);
+        shoutPublisher.close();
+        Assert.assertTrue(shoutPublisher.submit("step", () -> { }).isCompletedExceptionally());
+    }
+}
@@ -4,9 +4,14 @@ import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -79,4 +84,46 @@ class ShouterTest {
         Assert.assertEquals(0, publishCounter);
         Assert.assertEquals(0, exceptionHandlerCounter);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shoutAsync() throws Exception {
+        withShoutPublisher();
+        shouter.shoutAsync(SUBJECT_TYPE, dataValue).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(1, publishCounter);
+        Assert.assertEquals(0, exceptionHandlerCounter);
+    }
+
+    @Test
+    void shoutAsync_subjectNotExist() {
+        withShoutPublisher();
+        CompletableFuture<Void> future = shouter.shoutAsync(SUBJECT_TYPE_NOT_EXIST, objValue);
+        Assert.assertTrue(future.isCompletedExceptionally());
+        Assert.assertEquals(0, publishCounter);
+        Assert.assertEquals(0, exceptionHandlerCounter);
+    }
+
+    @Test
+    void shoutAsync_distributionFailed() throws Exception {
+        withShoutPublisher();
+        doThrow(new IllegalStateException()).when(subject).publish(any(Data.class));
+        try {
+            shouter.shoutAsync(SUBJECT_TYPE, dataValue).get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SteppingDistributionException);
+        }
+        Assert.assertEquals(1, exceptionHandlerCounter);
+    }
+
+    @Test
+    void shoutAsync_withoutPublisher() {
+        CompletableFuture<Void> future = shouter.shoutAsync(SUBJECT_TYPE, dataValue);
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(1, publishCounter);
+    }
+
+    private void withShoutPublisher() {
+        ShoutPublisher shoutPublisher = new ShoutPublisher("Test", 16);
+        when(container.getById(BuiltinTypes.STEPPING_SHOUT_PUBLISHER.name())).then(a -> shoutPublisher);
+    }
+}
@@ -2,12 +2,18 @@ package com.imperva.stepping;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.xml.ws.Holder;
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.eq;
@@ -132,6 +138,25 @@ class StepDecoratorTest {
         }
     }
 
+    private class JournaledStep extends StepWithConfig {
+        private final List<String> values;
+
+        private JournaledStep(StepConfig config, List<String> values) {
+            super(config);
+            this.values = values;
+        }
+
+        @Override
+        public void onSubjectUpdate(Data data, String subjectType) {
+            values.add((String) data.getValue());
+        }
+
+        @Override
+        public String getId() {
+            return "journaledStep";
+        }
+    }
+
 //    private class LongerInitialDelayRunningScheduled extends RunningScheduled {
 //
 //        protected LongerInitialDelayRunningScheduled(String id, Runnable runnable) {
@@ -340,6 +365,153 @@ class StepDecoratorTest {
         Assertions.assertEquals(subjectType, ((LastDataHolderStep) decorator.getStep()).lastSubjectType);
     }
 
+    @Test
+    void openDataSink_batch() {
+        StepConfig stepConfig = new StepConfig();
+        stepConfig.setBatchDrainSize(10);
+        List<Integer> batchSizes = new ArrayList<>();
+        Data lastData = createNonExpirableData();
+
+        Step step = new StepWithConfig(stepConfig) {
+            @Override
+            public void onSubjectUpdateBatch(List<Message> messages) {
+                batchSizes.add(messages.size());
+                if (messages.get(messages.size() - 1).getData() == lastData) {
+                    synchronized (lastData) {
+                        lastData.notify();
+                    }
+                }
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        decorator.init(mock(Container.class), mock(Shouter.class));
+
+        decorator.q.queue(new Message(createNonExpirableData(), "subject1"));
+        decorator.q.queue(new Message(createNonExpirableData(), "subject2"));
+        decorator.q.queue(new Message(lastData, "subject1"));
+
+        new Thread(decorator::openDataSink).start();
+        try {
+            synchronized (lastData) {
+                lastData.wait(Consts.WAIT_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException ex) {
+            throw new RuntimeException("Interrupted while waiting", ex);
+        }
+
+        Assertions.assertEquals(1, batchSizes.size());
+        Assertions.assertEquals(3, batchSizes.get(0).intValue());
+    }
+
+    @Test
+    void openDataSink_controlLaneBeforeBacklog() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch ticked = new CountDownLatch(1);
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                events.add(subjectType);
+            }
+
+            @Override
+            public void onTickCallBack() {
+                events.add("tick");
+                ticked.countDown();
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        decorator.init(mock(Container.class), mock(Shouter.class));
+
+        decorator.queueSubjectUpdate(createNonExpirableData(), "subject1");
+        decorator.queueSubjectUpdate(createNonExpirableData(), "subject2");
+        decorator.tick();
+
+        new Thread(decorator::openDataSink).start();
+        try {
+            Assertions.assertTrue(ticked.await(Consts.WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException ex) {
+            throw new RuntimeException("Interrupted while waiting", ex);
+        }
+
+        Assertions.assertEquals("tick", events.get(0));
+    }
+
+    @Test
+    void queueControl_poisonPillKeepsBacklog() {
+        StepDecorator decorator = createDoubleConfigStep(new StepConfig());
+        decorator.init(mock(Container.class), mock(Shouter.class));
+        decorator.queueSubjectUpdate(createNonExpirableData(), "subject1");
+        decorator.queueSubjectUpdate(createNonExpirableData(), "subject2");
+
+        decorator.queueControl(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE);
+
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+        Assertions.assertTrue(decorator.dead);
+        Assertions.assertEquals(2, decorator.getQSize());
+        Assertions.assertThrows(SteppingException.class, () -> decorator.queueControl(null, Consts.POINSON_PILL_SUBJECT_TYPE));
+    }
+
+    @Test
+    void onRestate_replaysJournal(@TempDir File directory) {
+        StepConfig stepConfig = new StepConfig();
+        stepConfig.setJournalCodec(new StringDataCodec());
+        stepConfig.setJournalDirectory(directory.getAbsolutePath());
+
+        StepDecorator decorator = new StepDecorator(new JournaledStep(stepConfig, new ArrayList<>()));
+        decorator.init(mock(Container.class), mock(Shouter.class));
+        decorator.queueSubjectUpdate(new Data("value1"), "subject1");
+        decorator.queueSubjectUpdate(new Data("value2"), "subject2");
+        decorator.close();
+
+        List<String> replayed = new ArrayList<>();
+        StepDecorator restarted = new StepDecorator(new JournaledStep(stepConfig, replayed));
+        restarted.init(mock(Container.class), mock(Shouter.class));
+        restarted.onRestate();
+        restarted.close();
+
+        Assertions.assertEquals(2, replayed.size());
+        Assertions.assertEquals("value1", replayed.get(0));
+        Assertions.assertEquals(0, restarted.getQSize());
+    }
+
+    @Test
+    void journal_fullQueueDoesNotHoldJournalLock(@TempDir File directory) throws InterruptedException {
+        StepConfig stepConfig = new StepConfig();
+        stepConfig.setJournalCodec(new StringDataCodec());
+        stepConfig.setJournalDirectory(directory.getAbsolutePath());
+        stepConfig.setBoundQueueCapacity(1);
+
+        StepDecorator decorator = new StepDecorator(new JournaledStep(stepConfig, new ArrayList<>()));
+        decorator.init(new ContainerDefaultImpl(), null);
+        decorator.queueSubjectUpdate(new Data("value1"), "subject1");
+        Thread producer = new Thread(() -> decorator.queueSubjectUpdate(new Data("value2"), "subject1"));
+        producer.start();
+        Thread.sleep(100);
+
+        //* The producer waits for room without holding the lock the journal checkpoints take
+        Assertions.assertTrue(producer.isAlive());
+        Assertions.assertTrue(decorator.journal.getLock().tryLock());
+        decorator.journal.getLock().unlock();
+
+        Assertions.assertEquals("value1", decorator.q.take().getData().getValue());
+        producer.join(Consts.WAIT_TIMEOUT_MILLIS);
+        Assertions.assertFalse(producer.isAlive());
+        Assertions.assertEquals("value2", decorator.q.take().getData().getValue());
+        decorator.close();
+    }
+
+    @Test
+    void journal_recycledEnvelopes(@TempDir File directory) {
+        StepConfig stepConfig = new StepConfig();
+        stepConfig.setJournalCodec(new StringDataCodec());
+        stepConfig.setJournalDirectory(directory.getAbsolutePath());
+        stepConfig.setQueueType(QueueType.MPSC_RING_BUFFER);
+        stepConfig.setRecycleMessageEnvelopes(true);
+
+        StepDecorator decorator = new StepDecorator(new JournaledStep(stepConfig, new ArrayList<>()));
+        Assertions.assertThrows(IdentifiableSteppingException.class, () -> decorator.init(mock(Container.class), mock(Shouter.class)));
+    }
+
     @Test
     void openDataSink_dead() {
         Data data1 = createNonExpirableData();
@@ -466,17 +638,52 @@ class StepDecoratorTest {
         StepDecorator decorator = createCounterTripleStep(counter);
         decorator.init(mock(Container.class), mock(Shouter.class));
 
-        CyclicBarrier cb = new CyclicBarrier(2);
-        decorator.q.queue(new Message(new Data(cb), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
-        new Thread(decorator::openDataSink).start();
-        try {
-            cb.await();
-        } catch (InterruptedException|BrokenBarrierException ex) {
-            throw new RuntimeException("Interrupted or broken while awaiting on cyclic barrier", ex);
-        }
+        decorator.q.queue(new Message(new Data("tick"), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
+        decorator.q.queue(new Message(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE));
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
         Assertions.assertEquals(-2, counter.get());
     }
 
+    @Test
+    void tick_coalescesPendingTicks() {
+        Counter counter = new Counter(0);
+        StepDecorator decorator = createCounterTripleStep(counter);
+        decorator.init(mock(Container.class), mock(Shouter.class));
+
+        decorator.tick();
+        decorator.tick();
+        decorator.tick();
+        Assertions.assertTrue(decorator.q.hasPending());
+        Assertions.assertEquals(2, decorator.getTickMetrics().getMissed());
+
+        decorator.q.queue(new Message(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE));
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+        Assertions.assertEquals(-2, counter.get());
+        Assertions.assertEquals(1, decorator.getTickMetrics().getDelivered());
+
+        Assertions.assertFalse(decorator.q.hasPending());
+        decorator.tick();
+        Assertions.assertTrue(decorator.q.hasPending());
+        Assertions.assertEquals(2, decorator.getTickMetrics().getMissed());
+    }
+
+    @Test
+    void getActivity_evenOnceMessagesProcessed() {
+        Counter counter = new Counter(0);
+        StepDecorator decorator = createCounterTripleStep(counter);
+        decorator.init(mock(Container.class), mock(Shouter.class));
+        Assertions.assertEquals(0, decorator.getActivity());
+
+        decorator.tick();
+        decorator.q.queue(new Message(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE));
+        Assertions.assertTrue(decorator.hasPending());
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+
+        Assertions.assertEquals(4, decorator.getActivity());
+        Assertions.assertFalse(decorator.hasPending());
+        Assertions.assertTrue(decorator.isDead());
+    }
+
     @Test
     void openDataSink_cronDelay_changeOnTheFly() {
         Counter counter = new Counter(13);
@@ -505,16 +712,7 @@ class StepDecoratorTest {
         decorator.init(cntrPublic, mock(Shouter.class));
 
         String runningScheduledId = stepId + ContainerService.RUNNING_SCHEDULED;
-        final CyclicBarrier cb = new CyclicBarrier(2);
-        try (RunningScheduled runningScheduled = new RunningScheduled(runningScheduledId,
-                () -> {
-                    try {
-                        decorator.queueSubjectUpdate(new Data(cb), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name());
-                        cb.await();
-                    } catch (Exception|Error ex) {
-                        throw new RuntimeException("Caught exception or error", ex);
-                    }
-                })) {
+        try (RunningScheduled runningScheduled = new RunningScheduled(runningScheduledId, decorator::tick)) {
             runningScheduled.setDelay(stepConfig.getRunningPeriodicDelay(), stepConfig.getRunningInitialDelay(), stepConfig.getRunningPeriodicDelayUnit());
             cntr.add(runningScheduled, runningScheduledId);
 
@@ -543,19 +741,6 @@ class StepDecoratorTest {
         Assertions.assertThrows(SteppingException.class, decorator::openDataSink);
     }
 
-    @Test
-    void openDataSink_cronDelay_exception_withAwait() {
-        StepConfig stepConfig = new StepConfig();
-        stepConfig.setRunningPeriodicCronDelay("*/5 * * * * *");
-
-        StepDecorator decorator = createDoubleConfigStep(stepConfig);
-        decorator.init(mock(Container.class), mock(Shouter.class));
-
-        CyclicBarrier cb = new CyclicBarrier(1);
-        decorator.q.queue(new Message(new Data(cb), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
-        Assertions.assertThrows(IdentifiableSteppingException.class, decorator::openDataSink);
-    }
-
     @Test
     void openDataSink_error() {
         Step step = new Step() {
@@ -656,6 +841,304 @@ class StepDecoratorTest {
         Assertions.assertEquals(3, counter.get());
     }
 
+    @Test
+    void conflatedSubject_latestDataPerKey() {
+        List<String> values = new CopyOnWriteArrayList<>();
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.followConflated("subject1", (data) -> ((String) data.getValue()).split("=")[0])
+                        .follow("subject2");
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                values.add((String) data.getValue());
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        Container cntrPublic = new ContainerService();
+        decorator.init(cntrPublic, mock(Shouter.class));
+        Counter counter = new Counter(0);
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject1", counter), "subject1"));
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject2", counter), "subject2"));
+        cntrPublic.add(new ContainerDefaultImpl(), ContainerService.STEPPING_PRIVATE_CONTAINER);
+        decorator.attachSubjects();
+
+        decorator.queueSubjectUpdate(new Data("a=1"), "subject1");
+        decorator.queueSubjectUpdate(new Data("b=1"), "subject1");
+        decorator.queueSubjectUpdate(new Data("x=1"), "subject2");
+        decorator.queueSubjectUpdate(new Data("a=2"), "subject1");
+        Assertions.assertTrue(decorator.offerQueueSubjectUpdate(new Data("a=3"), "subject1"));
+        decorator.queueSubjectUpdate(new Data("x=2"), "subject2");
+        Assertions.assertEquals(4, decorator.getQSize());
+
+        decorator.q.queue(new Message(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE));
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+
+        Assertions.assertEquals(Arrays.asList("a=3", "b=1", "x=1", "x=2"), values);
+    }
+
+    @Test
+    void conflatedSubject_clearedKeysQueuedAgain() {
+        List<String> values = new CopyOnWriteArrayList<>();
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.followConflated("subject1", (data) -> ((String) data.getValue()).split("=")[0]);
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                values.add((String) data.getValue());
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        Container cntrPublic = new ContainerService();
+        decorator.init(cntrPublic, mock(Shouter.class));
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject1", new Counter(0)), "subject1"));
+        cntrPublic.add(new ContainerDefaultImpl(), ContainerService.STEPPING_PRIVATE_CONTAINER);
+        decorator.attachSubjects();
+
+        decorator.queueSubjectUpdate(new Data("a=1"), "subject1");
+        decorator.queueSubjectUpdate(new Data("b=1"), "subject1");
+        Message staleMarker = decorator.q.peek();
+        decorator.clearQueueSubject();
+        Assertions.assertEquals(0, decorator.getQSize());
+
+        //* The cleared keys get a marker of their own again, a marker queued concurrently with the clear is skipped
+        decorator.q.queue(staleMarker);
+        decorator.queueSubjectUpdate(new Data("a=2"), "subject1");
+        decorator.queueSubjectUpdate(new Data("b=2"), "subject1");
+        Assertions.assertEquals(3, decorator.getQSize());
+
+        decorator.q.queue(new Message(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE));
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+        Assertions.assertEquals(Arrays.asList("a=2", "b=2"), values);
+    }
+
+    @Test
+    void fusedSubject_processedOnShoutingThread() {
+        List<String> values = new CopyOnWriteArrayList<>();
+        Counter counter = new Counter(0);
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1", (data) -> counter.increment()).fused();
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                values.add(data.getValue() + "@" + Thread.currentThread().getName());
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        Container cntrPublic = new ContainerService();
+        decorator.init(cntrPublic, mock(Shouter.class));
+        decorator.fuse(mock(IExceptionHandler.class));
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject1", new Counter(0)), "subject1"));
+        cntrPublic.add(new ContainerDefaultImpl(), ContainerService.STEPPING_PRIVATE_CONTAINER);
+        decorator.attachSubjects();
+
+        decorator.queueSubjectUpdate(new Data("1"), "subject1");
+        Assertions.assertTrue(decorator.offerQueueSubjectUpdate(new Data("2"), "subject1"));
+
+        String thread = Thread.currentThread().getName();
+        Assertions.assertEquals(Arrays.asList("1@" + thread, "2@" + thread), values);
+        Assertions.assertEquals(2, counter.get());
+        Assertions.assertEquals(0, decorator.getQSize());
+    }
+
+    @Test
+    void fusedSubject_failureIdentifiesFusedStep() {
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1").fused();
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                throw new IllegalStateException("failed");
+            }
+
+            @Override
+            public String getId() {
+                return "fusedStep";
+            }
+        };
+        IExceptionHandler exceptionHandler = mock(IExceptionHandler.class);
+        when(exceptionHandler.handle(any(Exception.class))).thenReturn(true, false);
+        StepDecorator decorator = new StepDecorator(step);
+        Container cntrPublic = new ContainerService();
+        decorator.init(cntrPublic, mock(Shouter.class));
+        decorator.fuse(exceptionHandler);
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject1", new Counter(0)), "subject1"));
+        cntrPublic.add(new ContainerDefaultImpl(), ContainerService.STEPPING_PRIVATE_CONTAINER);
+        decorator.attachSubjects();
+
+        decorator.queueSubjectUpdate(new Data("1"), "subject1");
+        Assertions.assertFalse(decorator.dead);
+        decorator.queueSubjectUpdate(new Data("2"), "subject1");
+        Assertions.assertTrue(decorator.dead);
+        decorator.queueSubjectUpdate(new Data("3"), "subject1");
+
+        verify(exceptionHandler, times(2)).handle(argThat((Exception e) -> e instanceof IdentifiableSteppingException
+                && ((IdentifiableSteppingException) e).getStepId().equals("fusedStep")));
+    }
+
+    @Test
+    void fusedSubject_concurrentShoutWaits() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> values = new CopyOnWriteArrayList<>();
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1").fused();
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                values.add((String) data.getValue());
+                running.countDown();
+                try {
+                    release.await(Consts.WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    throw new SteppingSystemException(e);
+                }
+            }
+
+            @Override
+            public String getId() {
+                return "fusedStep";
+            }
+        };
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        StepDecorator decorator = fusedDecorator(step, failures);
+
+        Thread shouter = new Thread(() -> decorator.queueSubjectUpdate(new Data("1"), "subject1"));
+        shouter.start();
+        Assertions.assertTrue(running.await(Consts.WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        Thread secondShouter = new Thread(() -> decorator.queueSubjectUpdate(new Data("2"), "subject1"));
+        secondShouter.start();
+
+        //* The second shouting thread waits for the running update instead of losing its Data
+        long deadline = System.currentTimeMillis() + Consts.WAIT_TIMEOUT_MILLIS;
+        while (secondShouter.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(Arrays.asList("1"), values);
+        release.countDown();
+        shouter.join();
+        secondShouter.join();
+
+        Assertions.assertEquals(Arrays.asList("1", "2"), values);
+        Assertions.assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    void fusedSubject_reentryReported() {
+        List<String> values = new CopyOnWriteArrayList<>();
+        StepDecorator[] self = new StepDecorator[1];
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1").fused();
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                values.add((String) data.getValue());
+                if (values.size() == 1)
+                    self[0].queueSubjectUpdate(new Data("2"), "subject1");
+            }
+
+            @Override
+            public String getId() {
+                return "fusedStep";
+            }
+        };
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        StepDecorator decorator = fusedDecorator(step, failures);
+        self[0] = decorator;
+
+        decorator.queueSubjectUpdate(new Data("1"), "subject1");
+        Assertions.assertEquals(Arrays.asList("1"), values);
+        Assertions.assertEquals(1, failures.size());
+        Assertions.assertEquals("fusedStep", ((IdentifiableSteppingException) failures.get(0)).getStepId());
+        Assertions.assertFalse(decorator.dead);
+
+        //* The lock is released once the running update completes
+        decorator.queueSubjectUpdate(new Data("3"), "subject1");
+        Assertions.assertEquals(Arrays.asList("1", "3"), values);
+    }
+
+    private StepDecorator fusedDecorator(Step step, List<Exception> failures) {
+        StepDecorator decorator = new StepDecorator(step);
+        Container cntrPublic = new ContainerService();
+        decorator.init(cntrPublic, null);
+        decorator.fuse((e) -> failures.add(e));
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject1", new Counter(0)), "subject1"));
+        cntrPublic.add(new ContainerDefaultImpl(), ContainerService.STEPPING_PRIVATE_CONTAINER);
+        decorator.attachSubjects();
+        return decorator;
+    }
+
+    @Test
+    void fuse_rejectsSeveralSubjects() {
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1").fused()
+                        .follow("subject2");
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        decorator.init(new ContainerService(), mock(Shouter.class));
+        Assertions.assertThrows(IdentifiableSteppingException.class, () -> decorator.fuse(mock(IExceptionHandler.class)));
+        Assertions.assertFalse(decorator.isFused());
+    }
+
+    @Test
+    void attachSubjects_compilesSubjectRoutes() {
+        List<String> values = new CopyOnWriteArrayList<>();
+        Counter counter = new Counter(0);
+        Step step = new StepWithConfig(new StepConfig()) {
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1", (data) -> counter.increment())
+                        .follow("subject2");
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                values.add(subjectType);
+            }
+        };
+        StepDecorator decorator = new StepDecorator(step);
+        Container cntrPublic = new ContainerService();
+        decorator.init(cntrPublic, mock(Shouter.class));
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject1", new Counter(0)), "subject1"));
+        cntrPublic.add(new Identifiable<>(new SubjectWithCounter("subject2", new Counter(0)), "subject2"));
+        cntrPublic.add(new ContainerDefaultImpl(), ContainerService.STEPPING_PRIVATE_CONTAINER);
+        decorator.attachSubjects();
+
+        decorator.queueSubjectUpdate(new Data("1"), "subject2");
+        Assertions.assertEquals(3, decorator.q.peek().subjectId);
+        decorator.queueSubjectUpdate(new Data("2"), "subject1");
+        decorator.q.queue(new Message(new Data("3"), "subject1"));//* Not stamped, resolved by name
+        decorator.queueControl(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE);
+        decorator.q.queue(new Message(new Data("cyanide"), Consts.POINSON_PILL_SUBJECT_TYPE));
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+        Assertions.assertTrue(values.isEmpty());
+
+        decorator.dead = false;
+        Assertions.assertThrows(SteppingSystemException.class, decorator::openDataSink);
+        Assertions.assertEquals(Arrays.asList("subject2", "subject1", "subject1"), values);
+        Assertions.assertEquals(2, counter.get());
+    }
+
     @Test
     void attachSubjects_withFollower_withEvent() {
         Counter counter = new Counter(0);
@@ -908,7 +1391,7 @@ class StepDecoratorTest {
     }
 
     @Test
-    void close_nullCb() {
+    void close_idle() {
         Counter counter = new Counter(0);
         Step step = new Step() {
 
@@ -928,7 +1411,7 @@ class StepDecoratorTest {
     }
 
     @Test
-    void close_notNullCb() {
+    void close_afterTickCallBack() {
         Counter counter = new Counter(0);
         Step step = new Step() {
 
@@ -949,15 +1432,9 @@ class StepDecoratorTest {
         StepDecorator decorator = new StepDecorator(step);
         decorator.init(mock(Container.class), mock(Shouter.class));
 
-        CyclicBarrier cb = new CyclicBarrier(2);
-        decorator.q.queue(new Message(new Data(cb), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
+        decorator.q.queue(new Message(new Data("tick"), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
         new Thread(decorator::openDataSink).start();
-        try {
-            cb.await();
-        } catch (InterruptedException|BrokenBarrierException ex) {
-            throw new RuntimeException("Interrupted or broken while awaiting on cyclic barrier", ex);
-        }
-        decorator.q.queue(new Message(new Data(cb), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
+        decorator.q.queue(new Message(new Data("tick"), BuiltinSubjectType.STEPPING_TIMEOUT_CALLBACK.name()));
         try {
             Thread.sleep(500);
         } catch (InterruptedException ex) {
@@ -968,6 +1445,181 @@ class StepDecoratorTest {
         Assertions.assertEquals(-3, counter.get());
     }
 
+    @Test
+    void workStealing_idleNodeWokenUpByBacklog() throws InterruptedException {
+        List<String> processedBy = new CopyOnWriteArrayList<>();
+        List<StepDecorator> nodes = new ArrayList<>();
+        for (int node = 0; node < 2; node++) {
+            String id = "node" + node;
+            StepConfig stepConfig = new StepConfig();
+            stepConfig.setWorkStealing(true);
+            StepDecorator decorator = new StepDecorator(new Step() {
+                @Override
+                public void init(Container cntr, Shouter shouter) {
+                }
+
+                @Override
+                public void onKill() {
+                }
+
+                @Override
+                public String getId() {
+                    return id;
+                }
+
+                @Override
+                public void listSubjectsToFollow(Follower follower) {
+                    follower.follow("subject1").orderInsensitive();
+                }
+
+                @Override
+                public void onSubjectUpdate(Data data, String subjectType) {
+                    processedBy.add(id);
+                }
+
+                @Override
+                public StepConfig getConfig() {
+                    return stepConfig;
+                }
+            });
+            ContainerDefaultImpl container = new ContainerDefaultImpl();
+            container.add(new Subject("subject1"), "subject1");
+            decorator.init(container, null);
+            decorator.attachSubjects();
+            nodes.add(decorator);
+        }
+        nodes.get(0).setSiblings(Arrays.asList(nodes.get(1)));
+        nodes.get(1).setSiblings(Arrays.asList(nodes.get(0)));
+
+        //* node0 has no thread, node1 is idle and blocked on its own queue when the backlog builds up
+        Thread thief = new Thread(nodes.get(1)::openDataSink);
+        thief.start();
+        Thread.sleep(100);
+        for (int i = 0; i < 10; i++) {
+            nodes.get(0).queueSubjectUpdate(new Data(i), "subject1");
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (processedBy.size() < 9 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        thief.interrupt();
+        //* Stealing stops below WORK_STEALING_MIN_VICTIM_SIZE
+        Assertions.assertTrue(processedBy.size() >= 9);
+        Assertions.assertTrue(processedBy.stream().allMatch("node1"::equals));
+    }
+
+    @Test
+    void attachSubjects_consumerGroupRequiresSharedDistribution() {
+        for (IDistributionStrategy strategy : Arrays.asList(new All2AllDistributionStrategy(), new SharedDistributionStrategy())) {
+            StepConfig stepConfig = new StepConfig();
+            stepConfig.setConsumerGroup(true);
+            StepDecorator decorator = new StepDecorator(new Step() {
+                @Override
+                public void init(Container cntr, Shouter shouter) {
+                }
+
+                @Override
+                public void onKill() {
+                }
+
+                @Override
+                public void listSubjectsToFollow(Follower follower) {
+                    follower.follow("subject1", strategy);
+                }
+
+                @Override
+                public StepConfig getConfig() {
+                    return stepConfig;
+                }
+            });
+            ContainerDefaultImpl container = new ContainerDefaultImpl();
+            container.add(new Subject("subject1"), "subject1");
+            decorator.init(container, null);
+            if (strategy instanceof SharedDistributionStrategy)
+                decorator.attachSubjects();
+            else
+                Assertions.assertThrows(IdentifiableSteppingException.class, decorator::attachSubjects);
+        }
+    }
+
+    @Test
+    void retire_dataSinkClosedOnceDrained() {
+        List<Object> processed = new CopyOnWriteArrayList<>();
+        StepDecorator node = retirableNode("node0", processed);
+        for (int i = 0; i < 3; i++) {
+            node.queueSubjectUpdate(new Data(i), "subject1");
+        }
+        node.retire();
+
+        //* Returns once the backlog is processed, the retire marker is not delivered to the Step
+        node.openDataSink();
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), processed);
+        Assertions.assertTrue(node.isRetired());
+        Assertions.assertTrue(node.isStopped());
+    }
+
+    @Test
+    void handOverQueueSubject_redistributed() throws InterruptedException {
+        List<Object> processed = new CopyOnWriteArrayList<>();
+        StepDecorator node = retirableNode("node0", processed, new LeastLoadedDistributionStrategy());
+        StepDecorator successor1 = retirableNode("node1", processed, new LeastLoadedDistributionStrategy());
+        StepDecorator successor2 = retirableNode("node2", processed, new LeastLoadedDistributionStrategy());
+        List<IStepDecorator> successors = Arrays.asList(successor1, successor2);
+        Assertions.assertThrows(IdentifiableSteppingException.class, () -> node.handOverQueueSubject(successors));
+
+        node.retire();
+        node.openDataSink();
+        //* Shouted before the node was detached from its Subjects
+        node.queueSubjectUpdate(new Data(0), "subject1");
+        node.queueSubjectUpdate(new Data(1), "subject1");
+        node.handOverQueueSubject(successors);
+
+        //* Through the Subject's distribution strategy, not all to a single node
+        Assertions.assertEquals(0, node.q.size());
+        Assertions.assertEquals(1, successor1.q.size());
+        Assertions.assertEquals(1, successor2.q.size());
+        Assertions.assertEquals("subject1", successor1.q.take().getSubjectType());
+    }
+
+    @Test
+    void handOverQueueSubject_lateDistributionForwarded() {
+        List<Object> processed = new CopyOnWriteArrayList<>();
+        StepDecorator node = retirableNode("node0", processed, new LeastLoadedDistributionStrategy());
+        StepDecorator successor = retirableNode("node1", processed, new LeastLoadedDistributionStrategy());
+        node.retire();
+        node.openDataSink();
+        node.handOverQueueSubject(Collections.singletonList(successor));
+
+        //* A distributor that picked the node before it was detached
+        node.queueSubjectUpdate(new Data(0), "subject1");
+        Assertions.assertTrue(node.offerQueueSubjectUpdate(new Data(1), "subject1"));
+        Assertions.assertEquals(0, node.q.size());
+        Assertions.assertEquals(2, successor.q.size());
+    }
+
+    @Test
+    void handOverQueueSubject_all2AllNotDuplicated() {
+        List<Object> processed = new CopyOnWriteArrayList<>();
+        StepDecorator node = retirableNode("node0", processed, new All2AllDistributionStrategy());
+        StepDecorator successor = retirableNode("node1", processed, new All2AllDistributionStrategy());
+        node.retire();
+        node.openDataSink();
+        node.queueSubjectUpdate(new Data(0), "subject1");
+        node.handOverQueueSubject(Collections.singletonList(successor));
+
+        //* The successor got its own copy from the Subject
+        Assertions.assertEquals(0, node.q.size());
+        Assertions.assertEquals(0, successor.q.size());
+    }
+
+    @Test
+    void retire_subjectNameReserved() throws InterruptedException {
+        StepDecorator node = retirableNode("node0", new ArrayList<>());
+        node.retire();
+        Message retire = node.q.take();
+        Assertions.assertEquals(BuiltinSubjectType.STEPPING_RETIRE.name(), retire.getSubjectType());
+    }
+
     /**
      * Creates 2 nested basic steps by way of decoration
      */
@@ -1022,6 +1674,42 @@ class StepDecoratorTest {
         return data;
     }
 
+    private StepDecorator retirableNode(String id, List<Object> processed) {
+        return retirableNode(id, processed, new All2AllDistributionStrategy());
+    }
+
+    private StepDecorator retirableNode(String id, List<Object> processed, IDistributionStrategy strategy) {
+        StepDecorator decorator = new StepDecorator(new Step() {
+            @Override
+            public void init(Container cntr, Shouter shouter) {
+            }
+
+            @Override
+            public void onKill() {
+            }
+
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Override
+            public void listSubjectsToFollow(Follower follower) {
+                follower.follow("subject1", strategy);
+            }
+
+            @Override
+            public void onSubjectUpdate(Data data, String subjectType) {
+                processed.add(data.getValue());
+            }
+        });
+        ContainerDefaultImpl container = new ContainerDefaultImpl();
+        container.add(new Subject("subject1"), "subject1");
+        decorator.init(container, null);
+        decorator.attachSubjects();
+        return decorator;
+    }
+
     private StepDecorator listSubjectsToFollow_inner(Holder<Follower> followerHolder) {
         Step step = new Step() {
 
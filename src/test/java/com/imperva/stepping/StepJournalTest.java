@@ -0,0 +1,104 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+class StepJournalTest {
+
+    @Test
+    void replay_unacknowledgedOnly(@TempDir File directory) {
+        StepJournal journal = new StepJournal(directory, new StringDataCodec(), 64, 0);
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Message message = new Message(new Data("value" + i), "subject");
+            journal.sync(journal.append(message));
+            messages.add(message);
+        }
+        for (int i = 0; i < 4; i++) {
+            journal.acknowledge(messages.get(i));
+        }
+        journal.close();
+
+        StepJournal reopened = new StepJournal(directory, new StringDataCodec(), 64, 0);
+        Assertions.assertEquals(6, reopened.getRecoveredCount());
+        List<String> replayed = new ArrayList<>();
+        reopened.replay(message -> replayed.add((String) message.getData().getValue()));
+        reopened.close();
+
+        Assertions.assertEquals(6, replayed.size());
+        Assertions.assertEquals("value4", replayed.get(0));
+        Assertions.assertEquals("value9", replayed.get(5));
+
+        StepJournal afterReplay = new StepJournal(directory, new StringDataCodec(), 64, 0);
+        Assertions.assertEquals(0, afterReplay.getRecoveredCount());
+        afterReplay.close();
+    }
+
+    @Test
+    void append_continuesSequenceAfterRestart(@TempDir File directory) {
+        StepJournal journal = new StepJournal(directory, new StringDataCodec(), 1024, 10);
+        journal.append(new Message(new Data("value1"), "subject"));
+        journal.close();
+
+        StepJournal reopened = new StepJournal(directory, new StringDataCodec(), 1024, 10);
+        Message message = new Message(new Data("value2"), "subject");
+        Assertions.assertEquals(1, reopened.append(message));
+        reopened.close();
+    }
+
+    @Test
+    void recover_tornTail(@TempDir File directory) throws IOException {
+        StepJournal journal = new StepJournal(directory, new StringDataCodec(), 1024, 0);
+        journal.append(new Message(new Data("value1"), "subject"));
+        journal.append(new Message(new Data("value2"), "subject"));
+        journal.close();
+
+        File segment = directory.listFiles((dir, name) -> name.endsWith(".journal"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        StepJournal reopened = new StepJournal(directory, new StringDataCodec(), 1024, 0);
+        Assertions.assertEquals(1, reopened.getRecoveredCount());
+        reopened.close();
+    }
+
+    @Test
+    void rollback_lastRecord(@TempDir File directory) {
+        StepJournal journal = new StepJournal(directory, new StringDataCodec(), 1024, 0);
+        journal.append(new Message(new Data("value1"), "subject"));
+        Message message = new Message(new Data("value2"), "subject");
+        journal.append(message);
+
+        journal.rollback(message);
+        Assertions.assertEquals(-1, message.journalSequence);
+        Assertions.assertEquals(1, journal.append(new Message(new Data("value3"), "subject")));
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        StepJournal reopened = new StepJournal(directory, new StringDataCodec(), 1024, 0);
+        reopened.replay(m -> replayed.add((String) m.getData().getValue()));
+        reopened.close();
+        Assertions.assertEquals(2, replayed.size());
+        Assertions.assertEquals("value3", replayed.get(1));
+    }
+
+    @Test
+    void acknowledgeAll(@TempDir File directory) {
+        StepJournal journal = new StepJournal(directory, new StringDataCodec(), 1024, 0);
+        journal.append(new Message(new Data("value1"), "subject"));
+        journal.acknowledgeAll();
+        journal.close();
+
+        StepJournal reopened = new StepJournal(directory, new StringDataCodec(), 1024, 0);
+        Assertions.assertEquals(0, reopened.getRecoveredCount());
+        reopened.close();
+    }
+}
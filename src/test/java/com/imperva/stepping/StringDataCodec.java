@@ -0,0 +1,19 @@
+package com.imperva.stepping;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes Data holding a String value, used by the spill-over and journal tests
+ */
+class StringDataCodec implements IDataCodec {
+
+    @Override
+    public byte[] encode(Data data) {
+        return ((String) data.getValue()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Data decode(byte[] bytes) {
+        return new Data(new String(bytes, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SubjectTest {
+
+    private final List<List<IStepDecorator>> distributions = new ArrayList<>();
+
+    private final IDistributionStrategy distributionStrategy = new IDistributionStrategy() {
+        @Override
+        public void distribute(List<IStepDecorator> iStepDecorators, Data data, String subjectType) {
+            distributions.add(iStepDecorators);
+        }
+    };
+
+    @Test
+    void publish_noFollowers() {
+        Subject subject = new Subject("subject1");
+        Data data = new Data("value");
+        subject.publish(data);
+        Assertions.assertTrue(distributions.isEmpty());
+        Assertions.assertSame(data, subject.getData());
+    }
+
+    @Test
+    void publish_oneRoutePerDistributionNodeID() {
+        Subject subject = new Subject("subject1");
+        IStepDecorator a1 = stepDecorator("a1", "a");
+        IStepDecorator b1 = stepDecorator("b1", "b");
+        IStepDecorator a2 = stepDecorator("a2", "a");
+        subject.attach(a1);
+        subject.attach(b1);
+        subject.attach(a2);
+
+        subject.publish(new Data("value"));
+
+        Assertions.assertEquals(2, distributions.size());
+        Assertions.assertEquals(Arrays.asList(a1, a2), distributions.get(0));
+        Assertions.assertEquals(Arrays.asList(b1), distributions.get(1));
+        Assertions.assertEquals(Arrays.asList("a1", "b1", "a2"), subject.getCopyObserversNames());
+    }
+
+    @Test
+    void attach_doesNotChangePublishedSnapshot() {
+        Subject subject = new Subject("subject1");
+        IStepDecorator a1 = stepDecorator("a1", "a");
+        subject.attach(a1);
+        subject.publish(new Data("value"));
+
+        subject.attach(stepDecorator("a2", "a"));
+
+        Assertions.assertEquals(Arrays.asList(a1), distributions.get(0));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> distributions.get(0).add(a1));
+    }
+
+    @Test
+    void detach() {
+        Subject subject = new Subject("subject1");
+        IStepDecorator a1 = stepDecorator("a1", "a");
+        IStepDecorator a2 = stepDecorator("a2", "a");
+        IStepDecorator b1 = stepDecorator("b1", "b");
+        subject.attach(a1);
+        subject.attach(a2);
+        subject.attach(b1);
+
+        subject.detach(a2);
+        subject.detach(b1);
+        subject.publish(new Data("value"));
+
+        Assertions.assertEquals(1, distributions.size());
+        Assertions.assertEquals(Arrays.asList(a1), distributions.get(0));
+        Assertions.assertEquals(Arrays.asList("a1"), subject.getCopyObserversNames());
+    }
+
+    @Test
+    void attach_missingDistributionStrategy() {
+        Subject subject = new Subject("subject1");
+        IStepDecorator stepDecorator = mock(IStepDecorator.class);
+        when(stepDecorator.getDistributionNodeID()).thenReturn("a");
+        Assertions.assertThrows(SteppingException.class, () -> subject.attach(stepDecorator));
+    }
+
+    private IStepDecorator stepDecorator(String id, String distributionNodeID) {
+        Step step = mock(Step.class);
+        when(step.getId()).thenReturn(id);
+        IStepDecorator stepDecorator = mock(IStepDecorator.class);
+        when(stepDecorator.getStep()).thenReturn(step);
+        when(stepDecorator.getDistributionNodeID()).thenReturn(distributionNodeID);
+        when(stepDecorator.getDistributionStrategy("subject1")).thenReturn(distributionStrategy);
+        return stepDecorator;
+    }
+}
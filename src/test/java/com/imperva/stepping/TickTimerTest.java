@@ -0,0 +1,123 @@
+package com.imperva.stepping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TickTimerTest {
+    private ExecutorService executor;
+    private TickTimer tickTimer;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        tickTimer = new TickTimer(1, TimeUnit.MILLISECONDS, executor, RunningScheduled.platformThreadFactory("tick.timer"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tickTimer.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void scheduleWithFixedDelay_runsPeriodically() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(5);
+        ScheduledFuture<?> future = tickTimer.scheduleWithFixedDelay("tick", latch::countDown, 0, 10, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assertions.assertTrue(future.cancel(false));
+        Assertions.assertTrue(future.isCancelled());
+        Assertions.assertTrue(future.isDone());
+    }
+
+    @Test
+    void scheduleWithFixedDelay_initialDelay() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        tickTimer.scheduleWithFixedDelay("tick", counter::incrementAndGet, 300, 10, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+        Assertions.assertEquals(0, counter.get());
+        Thread.sleep(400);
+        Assertions.assertTrue(counter.get() > 0);
+    }
+
+    @Test
+    void scheduleWithFixedDelay_delayLongerThanWheel() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        tickTimer.scheduleWithFixedDelay("tick", latch::countDown, 700, 700, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 690);
+    }
+
+    @Test
+    void scheduleWithFixedDelay_runsOnExecutorWithTaskName() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        String[] threadName = new String[1];
+        tickTimer.scheduleWithFixedDelay("step1.runningScheduled", () -> {
+            threadName[0] = Thread.currentThread().getName();
+            latch.countDown();
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assertions.assertEquals("step1.runningScheduled", threadName[0]);
+    }
+
+    @Test
+    void scheduleWithFixedDelay_nonBlockingRunsOnWheelThread() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        String[] threadName = new String[1];
+        tickTimer.scheduleWithFixedDelay("step1.runningScheduled", () -> {
+            threadName[0] = Thread.currentThread().getName();
+            latch.countDown();
+        }, 0, 10, TimeUnit.MILLISECONDS, true);
+        Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assertions.assertEquals("tick.timer", threadName[0]);
+    }
+
+    @Test
+    void cancel_interruptsRunningTask() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ScheduledFuture<?> future = tickTimer.scheduleWithFixedDelay("tick", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(started.await(2, TimeUnit.SECONDS));
+        future.cancel(true);
+        Assertions.assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failingTask_notRescheduled() throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledFuture<?> future = tickTimer.scheduleWithFixedDelay("tick", () -> {
+            counter.incrementAndGet();
+            throw new IllegalStateException("failed");
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+        Thread.sleep(100);
+        Assertions.assertEquals(1, counter.get());
+    }
+
+    @Test
+    void close_cancelsTasks() {
+        ScheduledFuture<?> future = tickTimer.scheduleWithFixedDelay("tick", () -> { }, 0, 10, TimeUnit.MILLISECONDS);
+        tickTimer.close();
+        Assertions.assertTrue(future.isCancelled());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> tickTimer.scheduleWithFixedDelay("tick", () -> { }, 0, 10, TimeUnit.MILLISECONDS));
+    }
+}